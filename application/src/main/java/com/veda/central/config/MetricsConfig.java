@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.config;
+
+import com.veda.central.service.auth.RejectedTokenCache;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Client ids of rejected requests are taken from untrusted tokens, hence the number of distinct tag values is capped.
+     */
+    @Bean
+    public MeterFilter rejectedTokenClientsMeterFilter(
+            @Value("${veda-auth.identity.auth.rejected-token-cache.max-tracked-clients:200}") int maxTrackedClients) {
+        return MeterFilter.maximumAllowableTags(RejectedTokenCache.REJECTIONS_METRIC, RejectedTokenCache.CLIENT_ID_TAG,
+                maxTrackedClients, MeterFilter.deny());
+    }
+}
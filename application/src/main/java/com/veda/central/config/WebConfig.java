@@ -1,12 +1,27 @@
 package com.veda.central.config;
 
+import com.veda.central.api.auth.AuthClaimArgumentResolver;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
-public class WebConfig {
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AuthClaimArgumentResolver authClaimArgumentResolver;
+
+    public WebConfig(AuthClaimArgumentResolver authClaimArgumentResolver) {
+        this.authClaimArgumentResolver = authClaimArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authClaimArgumentResolver);
+    }
 
     @Bean
     public WebMvcConfigurer corsConfigurer() {
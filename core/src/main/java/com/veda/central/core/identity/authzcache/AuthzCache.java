@@ -22,12 +22,14 @@ package com.veda.central.core.identity.authzcache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
+@ConditionalOnProperty(name = "veda-auth.identity.auth.cache.type", havingValue = "linked-hash-map")
 public class AuthzCache extends LinkedHashMap<AuthzCacheIndex, AuthzCacheEntry> {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(AuthzCache.class);
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.core.identity.authzcache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread safe authorization cache manager backed by a bounded Caffeine cache. Eviction follows the
+ * W-TinyLFU policy and each entry expires on its own once the TTL carried by its {@link AuthzCacheEntry} has passed.
+ */
+@Component
+@ConditionalOnProperty(name = "veda-auth.identity.auth.cache.type", havingValue = "concurrent", matchIfMissing = true)
+public class ConcurrentAuthzCacheManager implements AuthzCacheManager {
+
+    private final Cache<AuthzCacheIndex, AuthzCacheEntry> cache;
+
+    public ConcurrentAuthzCacheManager(@Value("${veda-auth.identity.auth.cache.size:1024}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new AuthzCacheEntryExpiry())
+                .build();
+    }
+
+    @Override
+    public AuthzCachedStatus getAuthzCachedStatus(AuthzCacheIndex authzCacheIndex) {
+        // expired entries are never returned, hence a single lookup is enough to decide the status
+        AuthzCacheEntry cacheEntry = cache.getIfPresent(authzCacheIndex);
+        if (cacheEntry == null) {
+            return AuthzCachedStatus.NOT_CACHED;
+        }
+        return cacheEntry.getDecision() ? AuthzCachedStatus.AUTHORIZED : AuthzCachedStatus.NOT_AUTHORIZED;
+    }
+
+    @Override
+    public void addToAuthzCache(AuthzCacheIndex authzCacheIndex, AuthzCacheEntry authzCacheEntry) {
+        cache.put(authzCacheIndex, authzCacheEntry);
+    }
+
+    @Override
+    public boolean isAuthzDecisionCached(AuthzCacheIndex authzCacheIndex) {
+        return cache.getIfPresent(authzCacheIndex) != null;
+    }
+
+    @Override
+    public AuthzCacheEntry getAuthzCacheEntry(AuthzCacheIndex authzCacheIndex) {
+        return cache.getIfPresent(authzCacheIndex);
+    }
+
+    @Override
+    public void removeAuthzCacheEntry(AuthzCacheIndex authzCacheIndex) {
+        cache.invalidate(authzCacheIndex);
+    }
+
+    @Override
+    public void clearCache() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Expires an entry {@link AuthzCacheEntry#getExpiryTime()} seconds after its entry timestamp.
+     */
+    private static class AuthzCacheEntryExpiry implements Expiry<AuthzCacheIndex, AuthzCacheEntry> {
+
+        @Override
+        public long expireAfterCreate(AuthzCacheIndex key, AuthzCacheEntry value, long currentTime) {
+            long expiresAt = value.getEntryTimestamp() + TimeUnit.SECONDS.toMillis(value.getExpiryTime());
+            long remaining = expiresAt - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remaining, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(AuthzCacheIndex key, AuthzCacheEntry value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(AuthzCacheIndex key, AuthzCacheEntry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
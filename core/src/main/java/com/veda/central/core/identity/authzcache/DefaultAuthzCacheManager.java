@@ -20,9 +20,11 @@
 package com.veda.central.core.identity.authzcache;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 @Component
+@ConditionalOnProperty(name = "veda-auth.identity.auth.cache.type", havingValue = "linked-hash-map")
 public class DefaultAuthzCacheManager implements AuthzCacheManager {
 
     @Autowired
@@ -21,8 +21,10 @@ package com.veda.central.core.repo.credential.store;
 
 import com.veda.central.core.model.credential.store.CredentialEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CredentialRepository extends JpaRepository<CredentialEntity, Long> {
@@ -32,4 +34,7 @@ public interface CredentialRepository extends JpaRepository<CredentialEntity, Lo
 
     @Transactional
     Optional<CredentialEntity> findByOwnerIdAndClientId(long ownerId, String clientId);
+
+    @Query("SELECT c.clientId AS clientId, c.ownerId AS ownerId FROM CredentialEntity c")
+    List<CredentialOwnerView> findAllCredentialOwners();
 }
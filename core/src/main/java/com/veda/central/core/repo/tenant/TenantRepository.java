@@ -21,12 +21,20 @@ package com.veda.central.core.repo.tenant;
 
 import com.veda.central.core.model.tenant.Tenant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TenantRepository extends JpaRepository<Tenant, Long>, SearchTenantRepository {
 
     List<Tenant> findByRequesterEmail(String requesterEmail);
 
     List<Tenant> findByDomainAndName(String domain, String name);
+
+    @Query("SELECT t.id AS id, t.status AS status, t.parentId AS parentId FROM Tenant t")
+    List<TenantStatusView> findAllTenantStatuses();
+
+    @Query("SELECT t.id AS id, t.status AS status, t.parentId AS parentId FROM Tenant t WHERE t.id = ?1")
+    Optional<TenantStatusView> findTenantStatusById(long id);
 }
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.api.auth;
+
+import com.veda.central.api.exception.UnauthorizedException;
+import com.veda.central.service.auth.AuthClaim;
+import com.veda.central.service.auth.RequestAuthContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Resolves {@link AuthenticatedClaim} parameters through the {@link RequestAuthContext}.
+ */
+@Component
+public class AuthClaimArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String CLIENT_ID = "client_id";
+
+    private final RequestAuthContext requestAuthContext;
+
+    public AuthClaimArgumentResolver(RequestAuthContext requestAuthContext) {
+        this.requestAuthContext = requestAuthContext;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(AuthenticatedClaim.class)
+                && AuthClaim.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        // RequestAuthContext memoizes the claim, so several parameters of one handler authorize once
+        Optional<AuthClaim> claim = requestAuthContext.authorize(getHeaders(webRequest), webRequest.getHeader(CLIENT_ID));
+
+        AuthenticatedClaim annotation = parameter.getParameterAnnotation(AuthenticatedClaim.class);
+        if (claim.isEmpty() && annotation != null && annotation.required()) {
+            throw new UnauthorizedException("Request is not authorized");
+        }
+        return claim.orElse(null);
+    }
+
+    private static HttpHeaders getHeaders(NativeWebRequest webRequest) {
+        HttpHeaders headers = new HttpHeaders();
+        for (Iterator<String> names = webRequest.getHeaderNames(); names.hasNext(); ) {
+            String name = names.next();
+            String[] values = webRequest.getHeaderValues(name);
+            if (values != null) {
+                headers.addAll(name, Arrays.asList(values));
+            }
+        }
+        return headers;
+    }
+}
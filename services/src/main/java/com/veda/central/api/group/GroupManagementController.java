@@ -19,6 +19,7 @@
 
 package com.veda.central.api.group;
 
+import com.veda.central.api.auth.AuthenticatedClaim;
 import com.veda.central.core.constants.Constants;
 import com.veda.central.core.user.profile.api.DefaultGroupMembershipTypes;
 import com.veda.central.core.user.profile.api.GetAllGroupsResponse;
@@ -33,7 +34,6 @@ import com.veda.central.core.user.profile.api.UserGroupMembershipTypeRequest;
 import com.veda.central.core.user.profile.api.UserProfile;
 import com.veda.central.core.user.profile.api.UserProfileRequest;
 import com.veda.central.service.auth.AuthClaim;
-import com.veda.central.service.auth.TokenAuthorizer;
 import com.veda.central.service.management.GroupManagementService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -44,7 +44,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.media.SchemaProperty;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -53,15 +52,12 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/group-management")
@@ -69,11 +65,9 @@ import java.util.Optional;
 public class GroupManagementController {
 
     private final GroupManagementService groupManagementService;
-    private final TokenAuthorizer tokenAuthorizer;
 
-    public GroupManagementController(GroupManagementService groupManagementService, TokenAuthorizer tokenAuthorizer) {
+    public GroupManagementController(GroupManagementService groupManagementService) {
         this.groupManagementService = groupManagementService;
-        this.tokenAuthorizer = tokenAuthorizer;
     }
 
     @PostMapping("/groups")
@@ -160,13 +154,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content())
             }
     )
-    public ResponseEntity<Group> createGroup(@RequestBody Group request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, headers.getFirst("client_id"));
-        if (claim.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized");
-        }
-
-        AuthClaim authClaim = claim.get();
+    public ResponseEntity<Group> createGroup(@RequestBody Group request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -255,8 +243,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content())
             }
     )
-    public ResponseEntity<Group> updateGroup(@PathVariable("groupId") String groupId, @RequestBody Group request, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Group> updateGroup(@PathVariable("groupId") String groupId, @RequestBody Group request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -297,8 +284,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content())
             }
     )
-    public ResponseEntity<?> deleteGroup(@PathVariable("groupId") String groupId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<?> deleteGroup(@PathVariable("groupId") String groupId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -338,8 +324,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error", content = @Content())
             }
     )
-    public ResponseEntity<Group> findGroup(@PathVariable("groupId") String groupId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Group> findGroup(@PathVariable("groupId") String groupId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -425,9 +410,8 @@ public class GroupManagementController {
             @RequestParam(name = "last_modified_time", defaultValue = "0", required = false) Long lastModifiedTime,
             @RequestParam(name = "offset", defaultValue = "0") int offset,
             @RequestParam(name = "limit", defaultValue = "20") int limit,
-            @RequestHeader HttpHeaders headers) {
+            @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
 
-        AuthClaim authClaim = authorize(headers);
         Group group = Group.newBuilder()
                 .setId(id)
                 .setName(name)
@@ -485,8 +469,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<?> removeUserFromGroup(@PathVariable("groupId") String groupId, @PathVariable("userId") String userId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<?> removeUserFromGroup(@PathVariable("groupId") String groupId, @PathVariable("userId") String userId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupMembership request = GroupMembership.newBuilder()
                 .setGroupId(groupId)
                 .setUsername(userId)
@@ -548,8 +531,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<Status> addUserToGroup(@PathVariable("groupId") String groupId, @RequestBody GroupMembership request, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Status> addUserToGroup(@PathVariable("groupId") String groupId, @RequestBody GroupMembership request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         request = request.toBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -602,8 +584,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<Status> addChildGroupToParentGroup(@PathVariable("parentId") String parentGroupId, @RequestBody GroupToGroupMembership request, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Status> addChildGroupToParentGroup(@PathVariable("parentId") String parentGroupId, @RequestBody GroupToGroupMembership request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         request = request.toBuilder()
                 .setParentId(parentGroupId)
                 .setTenantId(authClaim.getTenantId())
@@ -647,8 +628,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<?> removeChildGroupFromParentGroup(@PathVariable("parentId") String parentId, @PathVariable("childId") String childId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<?> removeChildGroupFromParentGroup(@PathVariable("parentId") String parentId, @PathVariable("childId") String childId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupToGroupMembership groupRequest = GroupToGroupMembership.newBuilder()
                 .setParentId(parentId)
                 .setChildId(childId)
@@ -692,8 +672,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<GetAllGroupsResponse> getAllGroupsOfUser(@PathVariable("userId") String username, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<GetAllGroupsResponse> getAllGroupsOfUser(@PathVariable("userId") String username, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         UserProfileRequest request = UserProfileRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setProfile(UserProfile.newBuilder().setUsername(username).build())
@@ -733,8 +712,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<GetAllGroupsResponse> getAllParentGroupsOfGroup(@PathVariable("groupId") String groupId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<GetAllGroupsResponse> getAllParentGroupsOfGroup(@PathVariable("groupId") String groupId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setGroup(Group.newBuilder().setId(groupId).build())
@@ -775,8 +753,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<GetAllUserProfilesResponse> getAllChildUsers(@PathVariable("groupId") String groupId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<GetAllUserProfilesResponse> getAllChildUsers(@PathVariable("groupId") String groupId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setGroup(Group.newBuilder().setId(groupId).build())
@@ -817,8 +794,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<GetAllGroupsResponse> getAllChildGroups(@PathVariable("groupId") String groupId, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<GetAllGroupsResponse> getAllChildGroups(@PathVariable("groupId") String groupId, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupRequest groupRequest = GroupRequest.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setGroup(Group.newBuilder().setId(groupId).build())
@@ -893,8 +869,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<?> changeUserMembershipType(@PathVariable("groupId") String groupId, @PathVariable("userId") String userId, @RequestBody GroupMembership request, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<?> changeUserMembershipType(@PathVariable("groupId") String groupId, @PathVariable("userId") String userId, @RequestBody GroupMembership request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         request = request.toBuilder()
                 .setGroupId(groupId)
                 .setUsername(userId)
@@ -946,8 +921,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<Status> hasAccess(@PathVariable("groupId") String groupId, @PathVariable("userId") String username, @RequestParam String type, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Status> hasAccess(@PathVariable("groupId") String groupId, @PathVariable("userId") String username, @RequestParam String type, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         GroupMembership request = GroupMembership.newBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setUsername(username)
@@ -992,8 +966,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<Status> addGroupMembershipType(@RequestBody UserGroupMembershipTypeRequest request, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<Status> addGroupMembershipType(@RequestBody UserGroupMembershipTypeRequest request, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         request = request.toBuilder()
                 .setTenantId(authClaim.getTenantId())
                 .setClientId(authClaim.getIamAuthId())
@@ -1030,8 +1003,7 @@ public class GroupManagementController {
                     @ApiResponse(responseCode = "500", description = "Internal Server Error")
             }
     )
-    public ResponseEntity<?> removeUserGroupMembershipType(@PathVariable("type") String type, @RequestHeader HttpHeaders headers) {
-        AuthClaim authClaim = authorize(headers);
+    public ResponseEntity<?> removeUserGroupMembershipType(@PathVariable("type") String type, @Parameter(hidden = true) @AuthenticatedClaim AuthClaim authClaim) {
         UserGroupMembershipTypeRequest request = UserGroupMembershipTypeRequest.newBuilder()
                 .setType(type)
                 .setTenantId(authClaim.getTenantId())
@@ -1041,13 +1013,4 @@ public class GroupManagementController {
         return status.getStatus() ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("GROUP_MEMBERSHIP_REMOVAL_FAILED");
     }
 
-    private AuthClaim authorize(@RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, headers.getFirst("client_id"));
-        if (claim.isEmpty()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized");
-        }
-
-        return claim.get();
-    }
-
 }
@@ -19,9 +19,6 @@
 
 package com.veda.central.api.identity;
 
-import com.nimbusds.jose.jwk.JWK;
-import com.nimbusds.jose.jwk.KeyUse;
-import com.nimbusds.jose.jwk.RSAKey;
 import com.veda.central.core.credential.store.api.Credentials;
 import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.identity.api.AuthenticationRequest;
@@ -40,6 +37,8 @@ import com.veda.central.core.identity.management.api.EndSessionRequest;
 import com.veda.central.core.identity.management.api.GetCredentialsRequest;
 import com.veda.central.service.auth.AuthClaim;
 import com.veda.central.service.auth.KeyLoader;
+import com.veda.central.service.auth.KeyRing;
+import com.veda.central.service.auth.RequestAuthContext;
 import com.veda.central.service.auth.TokenAuthorizer;
 import com.veda.central.service.credential.store.Credential;
 import com.veda.central.service.credential.store.CredentialManager;
@@ -55,6 +54,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -67,17 +68,15 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.net.URI;
-import java.security.KeyPair;
-import java.security.interfaces.RSAPublicKey;
-import java.util.Base64;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/v1/identity-management")
@@ -87,11 +86,16 @@ public class IdentityManagementController {
     private final IdentityManagementService identityManagementService;
     private final TokenAuthorizer tokenAuthorizer;
     private final KeyLoader keyLoader;
+    private final RequestAuthContext requestAuthContext;
 
-    public IdentityManagementController(IdentityManagementService identityManagementService, TokenAuthorizer tokenAuthorizer, KeyLoader keyLoader) {
+    @Value("${veda-auth.keys.jwks.max-age:300}")
+    private long jwksMaxAge;
+
+    public IdentityManagementController(IdentityManagementService identityManagementService, TokenAuthorizer tokenAuthorizer, KeyLoader keyLoader, RequestAuthContext requestAuthContext) {
         this.identityManagementService = identityManagementService;
         this.tokenAuthorizer = tokenAuthorizer;
         this.keyLoader = keyLoader;
+        this.requestAuthContext = requestAuthContext;
     }
 
     @PostMapping("/authenticate")
@@ -477,7 +481,7 @@ public class IdentityManagementController {
             }
     )
     public ResponseEntity<Credentials> getCredentials(@RequestParam(value = "client_id") String clientId, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, clientId);
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -527,27 +531,17 @@ public class IdentityManagementController {
         return ResponseEntity.ok(response);
     }
 
-    @GetMapping("/.well-known/jwks.json")
-    public ResponseEntity<?> keys() {
-        KeyPair keyPair = keyLoader.getKeyPair();
-        RSAPublicKey rsaPublicKey = (RSAPublicKey) keyPair.getPublic();
-
-        JWK jwk = new RSAKey.Builder(rsaPublicKey)
-                .keyID(keyLoader.getKeyID())
-                .keyUse(KeyUse.SIGNATURE)
-                .build();
+    @GetMapping(value = "/.well-known/jwks.json", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> keys(WebRequest webRequest) {
+        KeyRing keyRing = keyLoader.getKeyRing();
+        if (webRequest.checkNotModified(keyRing.getEtag())) {
+            return null;
+        }
 
-        Map<String, Object> jwkMap = Map.of(
-                "kty", "RSA",
-                "alg", "RS256",
-                "use", "sig",
-                "kid", jwk.getKeyID(),
-                "n", Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getModulus().toByteArray()),
-                "e", Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getPublicExponent().toByteArray()),
-                "x5c", Collections.singletonList(Base64.getUrlEncoder().withoutPadding().encodeToString(rsaPublicKey.getEncoded()))
-        );
-
-        return ResponseEntity.ok(Map.of("keys", Collections.singletonList(jwkMap)));
+        return ResponseEntity.ok()
+                .eTag(keyRing.getEtag())
+                .cacheControl(CacheControl.maxAge(jwksMaxAge, TimeUnit.SECONDS).cachePublic())
+                .body(keyRing.getJwks());
     }
 
     @PostMapping("/token/introspect")
@@ -601,10 +595,12 @@ public class IdentityManagementController {
             Claim userClaim = Claim.newBuilder().setKey("username").setValue(authClaim.getUsername()).build();
             Claim tenantClaim = Claim.newBuilder().setKey("tenantId").setValue(String.valueOf(authClaim.getTenantId())).build();
             Claim clientClaim = Claim.newBuilder().setKey("clientId").setValue(String.valueOf(authClaim.getVedaId())).build();
+            Claim iamClientClaim = Claim.newBuilder().setKey("iamClientId").setValue(String.valueOf(authClaim.getIamAuthId())).build();
 
             builder.addClaims(userClaim);
             builder.addClaims(tenantClaim);
             builder.addClaims(clientClaim);
+            builder.addClaims(iamClientClaim);
 
             return builder;
 
@@ -48,6 +48,7 @@ import com.veda.central.core.tenant.profile.api.Tenant;
 import com.veda.central.core.tenant.profile.api.UpdateStatusRequest;
 import com.veda.central.core.tenant.profile.api.UpdateStatusResponse;
 import com.veda.central.service.auth.AuthClaim;
+import com.veda.central.service.auth.RequestAuthContext;
 import com.veda.central.service.auth.TokenAuthorizer;
 import com.veda.central.service.management.TenantManagementService;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -78,11 +79,14 @@ public class TenantManagementController {
 
     private final TenantManagementService tenantManagementService;
     private final TokenAuthorizer tokenAuthorizer;
+    private final RequestAuthContext requestAuthContext;
 
 
-    public TenantManagementController(TenantManagementService tenantManagementService, TokenAuthorizer tokenAuthorizer) {
+    public TenantManagementController(TenantManagementService tenantManagementService, TokenAuthorizer tokenAuthorizer,
+                                      RequestAuthContext requestAuthContext) {
         this.tenantManagementService = tenantManagementService;
         this.tokenAuthorizer = tokenAuthorizer;
+        this.requestAuthContext = requestAuthContext;
     }
 
     @PostMapping("/oauth2/tenant")
@@ -90,7 +94,7 @@ public class TenantManagementController {
         String token = tokenAuthorizer.getToken(headers);
 
         if (StringUtils.isBlank(token)) {
-            Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers);
+            Optional<AuthClaim> claim = requestAuthContext.authorize(headers);
             if (claim.isPresent()) {
                 AuthClaim authClaim = claim.get();
                 request = request.toBuilder().setParentTenantId(authClaim.getTenantId()).build();
@@ -103,7 +107,7 @@ public class TenantManagementController {
 
     @GetMapping("/oauth2/tenant")
     public ResponseEntity<Tenant> getTenant(@Valid @RequestBody GetTenantRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
             Credentials credentials = getCredentials(authClaim);
@@ -122,7 +126,7 @@ public class TenantManagementController {
 
     @PutMapping("/user/profile")
     public ResponseEntity<Tenant> updateTenant(@Valid @RequestBody UpdateTenantRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
             Credentials credentials = getCredentials(authClaim);
@@ -141,7 +145,7 @@ public class TenantManagementController {
 
     @DeleteMapping("/user")
     public ResponseEntity<?> deleteTenant(@Valid @RequestBody DeleteTenantRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
             Credentials credentials = getCredentials(authClaim);
@@ -166,7 +170,7 @@ public class TenantManagementController {
 
     @PostMapping("/roles")
     public ResponseEntity<AllRoles> addTenantRoles(@Valid @RequestBody AddRolesRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
 
@@ -176,7 +180,7 @@ public class TenantManagementController {
                         .setClientId(authClaim.getVedaId())
                         .build();
             } else {
-                CredentialMetadata metadata = tokenAuthorizer.getCredentialsFromClientId(request.getClientId());
+                CredentialMetadata metadata = requestAuthContext.getCredentialsFromClientId(request.getClientId());
                 if (authClaim.isSuperTenant() || tokenAuthorizer.validateParentChildTenantRelationShip(authClaim.getTenantId(), metadata.getOwnerId())) {
                     request = request.toBuilder()
                             .setTenantId(metadata.getOwnerId())
@@ -195,7 +199,7 @@ public class TenantManagementController {
 
     @GetMapping("/roles")
     public ResponseEntity<AllRoles> getTenantRoles(@Valid @RequestBody GetRolesRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
 
@@ -205,7 +209,7 @@ public class TenantManagementController {
                         .setClientId(authClaim.getVedaId())
                         .build();
             } else {
-                CredentialMetadata metadata = tokenAuthorizer.getCredentialsFromClientId(request.getClientId());
+                CredentialMetadata metadata = requestAuthContext.getCredentialsFromClientId(request.getClientId());
                 if (authClaim.isSuperTenant() || tokenAuthorizer.validateParentChildTenantRelationShip(authClaim.getTenantId(), metadata.getOwnerId())) {
                     request = request.toBuilder()
                             .setTenantId(metadata.getOwnerId())
@@ -224,7 +228,7 @@ public class TenantManagementController {
 
     @DeleteMapping("/role")
     public ResponseEntity<OperationStatus> deleteRole(@Valid @RequestBody DeleteRoleRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
 
@@ -234,7 +238,7 @@ public class TenantManagementController {
                         .setClientId(authClaim.getVedaId())
                         .build();
             } else {
-                CredentialMetadata metadata = tokenAuthorizer.getCredentialsFromClientId(request.getClientId());
+                CredentialMetadata metadata = requestAuthContext.getCredentialsFromClientId(request.getClientId());
                 if (authClaim.isSuperTenant() || tokenAuthorizer.validateParentChildTenantRelationShip(authClaim.getTenantId(), metadata.getOwnerId())) {
                     request = request.toBuilder()
                             .setTenantId(metadata.getOwnerId())
@@ -253,7 +257,7 @@ public class TenantManagementController {
 
     @PostMapping("/protocol/mapper")
     public ResponseEntity<OperationStatus> addProtocolMapper(@Valid @RequestBody AddProtocolMapperRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
 
@@ -263,7 +267,7 @@ public class TenantManagementController {
                         .setClientId(authClaim.getVedaId())
                         .build();
             } else {
-                CredentialMetadata metadata = tokenAuthorizer.getCredentialsFromClientId(request.getClientId());
+                CredentialMetadata metadata = requestAuthContext.getCredentialsFromClientId(request.getClientId());
                 if (authClaim.isSuperTenant() || tokenAuthorizer.validateParentChildTenantRelationShip(authClaim.getTenantId(), metadata.getOwnerId())) {
                     request = request.toBuilder()
                             .setTenantId(metadata.getOwnerId())
@@ -281,7 +285,7 @@ public class TenantManagementController {
 
     @PostMapping("/events")
     public ResponseEntity<OperationStatus> configureEventPersistence(@Valid @RequestBody EventPersistenceRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             request = request.toBuilder()
                     .setTenantId(claim.get().getTenantId())
@@ -309,7 +313,7 @@ public class TenantManagementController {
 
     @GetMapping("/child/tenants")
     public ResponseEntity<GetAllTenantsResponse> getChildTenants(@Valid @RequestBody GetTenantsRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
 
@@ -318,7 +322,7 @@ public class TenantManagementController {
                         .setParentId(authClaim.getTenantId())
                         .build();
             } else {
-                CredentialMetadata metadata = tokenAuthorizer.getCredentialsFromClientId(request.getParentClientId());
+                CredentialMetadata metadata = requestAuthContext.getCredentialsFromClientId(request.getParentClientId());
                 if (authClaim.isSuperTenant() || tokenAuthorizer.validateParentChildTenantRelationShip(authClaim.getTenantId(), metadata.getOwnerId())) {
                     request = request.toBuilder()
                             .setParentId(metadata.getOwnerId())
@@ -336,7 +340,7 @@ public class TenantManagementController {
 
     @GetMapping("/tenants/{requesterEmail}")
     public ResponseEntity<GetAllTenantsForUserResponse> getAllTenantsForUser(@PathVariable("requesterEmail") String requesterEmail, @RequestHeader HttpHeaders headers) {
-        tokenAuthorizer.authorize(headers);
+        requestAuthContext.authorize(headers);
         GetAllTenantsForUserResponse response = tenantManagementService.getAllTenantsForUser(GetAllTenantsForUserRequest.newBuilder().setRequesterEmail(requesterEmail).build());
         return ResponseEntity.ok(response);
     }
@@ -362,7 +366,7 @@ public class TenantManagementController {
     @PostMapping("/cache/institutions/CILogon")
     public ResponseEntity<Status> addToCache(@Valid @RequestBody CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
         request = generateCacheManipulationRequest(request, headers);
-        Optional<AuthClaim> userClaim = tokenAuthorizer.validateUserToken(headers);
+        Optional<AuthClaim> userClaim = requestAuthContext.validateUserToken(headers);
         if (userClaim.isPresent()) {
             request = request.toBuilder()
                     .setPerformedBy(userClaim.get().getUsername())
@@ -375,7 +379,7 @@ public class TenantManagementController {
     @DeleteMapping("/cache/institutions/CILogon")
     public ResponseEntity<Status> removeFromCache(@Valid @RequestBody CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
         request = generateCacheManipulationRequest(request, headers);
-        Optional<AuthClaim> userClaim = tokenAuthorizer.validateUserToken(headers);
+        Optional<AuthClaim> userClaim = requestAuthContext.validateUserToken(headers);
         if (userClaim.isPresent()) {
             request = request.toBuilder()
                     .setPerformedBy(userClaim.get().getUsername())
@@ -394,7 +398,7 @@ public class TenantManagementController {
 
     @PostMapping("/oauth2/tenant/{tenantId}/client")
     public ResponseEntity<?> configureClient(@PathVariable("tenantId") int tenantId, @RequestBody Map<String, Object> body, @RequestHeader HttpHeaders headers) {
-        tokenAuthorizer.authorize(headers);
+        requestAuthContext.authorize(headers);
         Map<String, String> response = tenantManagementService.addClient(tenantId, (String) body.get("tenantUrl"), (List<String>) body.get("redirectUris"));
         return ResponseEntity.ok(response);
     }
@@ -413,7 +417,7 @@ public class TenantManagementController {
     }
 
     private CacheManipulationRequest generateCacheManipulationRequest(CacheManipulationRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers);
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
             return request.toBuilder()
@@ -49,6 +49,7 @@ import com.veda.central.core.user.profile.api.GetUpdateAuditTrailRequest;
 import com.veda.central.core.user.profile.api.GetUpdateAuditTrailResponse;
 import com.veda.central.core.user.profile.api.UserProfile;
 import com.veda.central.service.auth.AuthClaim;
+import com.veda.central.service.auth.RequestAuthContext;
 import com.veda.central.service.auth.TokenAuthorizer;
 import com.veda.central.service.management.UserManagementService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -86,10 +87,12 @@ public class UserManagementController {
 
     private final UserManagementService userManagementService;
     private final TokenAuthorizer tokenAuthorizer;
+    private final RequestAuthContext requestAuthContext;
 
-    public UserManagementController(UserManagementService userManagementService, TokenAuthorizer tokenAuthorizer) {
+    public UserManagementController(UserManagementService userManagementService, TokenAuthorizer tokenAuthorizer, RequestAuthContext requestAuthContext) {
         this.userManagementService = userManagementService;
         this.tokenAuthorizer = tokenAuthorizer;
+        this.requestAuthContext = requestAuthContext;
     }
 
     @PostMapping("/user")
@@ -109,7 +112,7 @@ public class UserManagementController {
             }
     )
     public ResponseEntity<RegisterUserResponse> registerUser(@RequestParam(value = "client_id", required = false) String clientId, @RequestBody UserRepresentation requestData, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, clientId);
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -160,7 +163,7 @@ public class UserManagementController {
     )
     public ResponseEntity<RegisterUsersResponse> registerAndEnableUsers(@RequestParam(value = "client_id") String clientId, @RequestBody RegisterUsersRequest request, @RequestHeader HttpHeaders headers) {
         headers = attachUserToken(headers, clientId);
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, clientId);
 
         if (claim.isPresent()) {
             Optional<String> userTokenOp = tokenAuthorizer.getUserTokenFromUserTokenHeader(headers);
@@ -220,11 +223,11 @@ public class UserManagementController {
     )
     public ResponseEntity<OperationStatus> addUserAttributes(@RequestParam(value = "client_id") String clientId, @RequestBody AddUserAttributesRequest request, @RequestHeader HttpHeaders headers) {
         headers = attachUserToken(headers, clientId);
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, clientId);
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -252,11 +255,11 @@ public class UserManagementController {
     )
     public ResponseEntity<OperationStatus> deleteUserAttributes(@RequestBody DeleteUserAttributeRequest request, @RequestHeader HttpHeaders headers) {
         headers = attachUserToken(headers, request.getClientId());
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -333,7 +336,7 @@ public class UserManagementController {
                     "and returns an OperationStatus reflecting the result."
     )
     public ResponseEntity<OperationStatus> deleteExternalIDPsOfUsers(@RequestBody DeleteExternalIDPsRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -356,7 +359,7 @@ public class UserManagementController {
                     "an OperationStatus reflecting the result."
     )
     public ResponseEntity<OperationStatus> addExternalIDPsOfUsers(@RequestBody AddExternalIDPLinksRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -379,7 +382,7 @@ public class UserManagementController {
                     "Upon successful execution, the system returns a GetExternalIDPsResponse containing the associated external IDPs for each user."
     )
     public ResponseEntity<GetExternalIDPsResponse> getExternalIDPsOfUsers(@RequestBody GetExternalIDPsRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -402,11 +405,11 @@ public class UserManagementController {
     )
     public ResponseEntity<OperationStatus> addRolesToUsers(@Valid @RequestBody AddUserRolesRequest request, @RequestHeader HttpHeaders headers) {
         headers = attachUserToken(headers, request.getClientId());
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -456,7 +459,7 @@ public class UserManagementController {
                     "detailed information about the user."
     )
     public ResponseEntity<UserRepresentation> getUser(@Valid @RequestBody UserSearchRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -483,7 +486,7 @@ public class UserManagementController {
                                                        @RequestParam(value = "limit") int limit,
                                                        @RequestParam("user.id") String userId,
                                                        @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, clientId);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, clientId);
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -513,7 +516,7 @@ public class UserManagementController {
                     "reflecting the result of the password update process."
     )
     public ResponseEntity<OperationStatus> resetPassword(@RequestBody ResetUserPassword request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -548,11 +551,11 @@ public class UserManagementController {
     )
     public ResponseEntity<OperationStatus> deleteUserRoles(@Valid @RequestBody DeleteUserRolesRequest request, @RequestHeader HttpHeaders headers) {
         headers = attachUserToken(headers, request.getClientId());
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -577,11 +580,11 @@ public class UserManagementController {
                     "user details. Upon successful profile update, the system sends back the updated UserProfile wrapped in a ResponseEntity."
     )
     public ResponseEntity<UserProfile> updateUserProfile(@RequestBody UserProfileRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -608,7 +611,7 @@ public class UserManagementController {
                     "profile is to be retrieved. The system would return a ResponseEntity containing the UserProfile for the specified user."
     )
     public ResponseEntity<UserProfile> getUserProfile(@Valid @RequestBody UserProfileRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
 
         if (claim.isPresent()) {
             request = request.toBuilder().setTenantId(claim.get().getTenantId()).build();
@@ -627,7 +630,7 @@ public class UserManagementController {
                     "profile is to be deleted. Upon successful profile deletion, the system would send back a ResponseEntity."
     )
     public ResponseEntity<UserProfile> deleteUserProfile(@RequestBody UserProfileRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -650,7 +653,7 @@ public class UserManagementController {
                     "wrapping all user profiles in the tenant."
     )
     public ResponseEntity<GetAllUserProfilesResponse> getAllUserProfilesInTenant(@RequestBody UserProfileRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, request.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, request.getClientId());
 
         if (claim.isPresent()) {
             request = request.toBuilder().setTenantId(claim.get().getTenantId()).build();
@@ -671,7 +674,7 @@ public class UserManagementController {
     )
     public ResponseEntity<OperationStatus> linkUserProfile(@RequestBody LinkUserProfileRequest request, @RequestHeader HttpHeaders headers) {
         String token = tokenAuthorizer.getToken(headers);
-        Optional<AuthClaim> claim = tokenAuthorizer.authorizeUsingUserToken(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorizeUsingUserToken(headers);
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
@@ -697,7 +700,7 @@ public class UserManagementController {
                     "a GetUpdateAuditTrailResponse wrapping the retrieved audit details."
     )
     public ResponseEntity<GetUpdateAuditTrailResponse> getUserProfileAuditTrails(@RequestBody GetUpdateAuditTrailRequest request, @RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers);
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers);
 
         if (claim.isPresent()) {
             request = request.toBuilder().setTenantId(claim.get().getTenantId()).build();
@@ -735,7 +738,7 @@ public class UserManagementController {
             }
     )
     public ResponseEntity<Object> userInfo(@RequestHeader HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, headers.getFirst("client_id"));
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, headers.getFirst("client_id"));
 
         if (claim.isPresent()) {
             Map<String, Object> userInfo = userManagementService.getUserInfo(tokenAuthorizer.getToken(headers), claim.get().getTenantId());
@@ -758,11 +761,11 @@ public class UserManagementController {
 
     private UserSearchRequest.Builder generateUserSearchRequest(UserSearchRequest.Builder builder, HttpHeaders headers) {
         headers = attachUserToken(headers, builder.getClientId());
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, builder.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, builder.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
-            AuthToken authToken = tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId());
+            AuthToken authToken = requestAuthContext.getSAToken(authClaim);
 
             if (authToken == null || StringUtils.isBlank(authToken.getAccessToken())) {
                 throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Request is not authorized. Service Account token is invalid");
@@ -782,7 +785,7 @@ public class UserManagementController {
     }
 
     private UserSearchRequest.Builder generateUserSearchRequestWithoutAdditionalHeader(UserSearchRequest.Builder builder, HttpHeaders headers) {
-        Optional<AuthClaim> claim = tokenAuthorizer.authorize(headers, builder.getClientId());
+        Optional<AuthClaim> claim = requestAuthContext.authorize(headers, builder.getClientId());
 
         if (claim.isPresent()) {
             AuthClaim authClaim = claim.get();
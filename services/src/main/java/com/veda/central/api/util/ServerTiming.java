@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.api.util;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Supplier;
+
+/**
+ * Collects the durations of the phases of the current HTTP request, to be reported in the {@code Server-Timing}
+ * response header. Outside of a request, durations are measured but not recorded.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    private static final String TIMINGS_ATTRIBUTE = ServerTiming.class.getName() + ".timings";
+
+    private ServerTiming() {
+    }
+
+    /**
+     * Runs the supplier and records its duration under the given metric name.
+     */
+    public static <T> T record(String metric, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(metric, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds the given duration to the metric of the current request.
+     */
+    public static void record(String metric, long durationNanos) {
+        Map<String, Long> timings = getTimings(true);
+        if (timings != null) {
+            synchronized (timings) {
+                timings.merge(metric, durationNanos, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@code Server-Timing} header value of the current request, or null if nothing was recorded.
+     */
+    public static String header() {
+        Map<String, Long> timings = getTimings(false);
+        if (timings == null) {
+            return null;
+        }
+
+        StringJoiner header = new StringJoiner(", ");
+        synchronized (timings) {
+            if (timings.isEmpty()) {
+                return null;
+            }
+            timings.forEach((metric, nanos) ->
+                    header.add(metric + ";dur=" + String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0)));
+        }
+        return header.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Long> getTimings(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+
+        Map<String, Long> timings = (Map<String, Long>) attributes.getAttribute(TIMINGS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (timings == null && create) {
+            timings = new LinkedHashMap<>();
+            attributes.setAttribute(TIMINGS_ATTRIBUTE, timings, RequestAttributes.SCOPE_REQUEST);
+        }
+        return timings;
+    }
+}
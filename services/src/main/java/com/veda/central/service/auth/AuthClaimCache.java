@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veda.central.service.util.TokenDigests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL based cache of fully resolved {@link AuthClaim}s keyed by the SHA-256 digest of the bearer token.
+ * Entries are dropped when the credentials or the status of the owning tenant change.
+ */
+@Component
+public class AuthClaimCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AuthClaimCache.class);
+
+    private final boolean enabled;
+    private final Cache<String, AuthClaim> cache;
+
+    public AuthClaimCache(@Value("${veda-auth.identity.auth.claim-cache.enabled:true}") boolean enabled,
+                          @Value("${veda-auth.identity.auth.claim-cache.size:1024}") long maxSize,
+                          @Value("${veda-auth.identity.auth.claim-cache.ttl:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public Optional<AuthClaim> get(String token) {
+        if (!enabled || token == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(TokenDigests.fingerprint(token)));
+    }
+
+    public void put(String token, AuthClaim authClaim) {
+        if (enabled && token != null && authClaim != null) {
+            cache.put(TokenDigests.fingerprint(token), authClaim);
+        }
+    }
+
+    /**
+     * Removes every cached claim that belongs to the given tenant.
+     *
+     * @param tenantId the owner id of the credentials or the tenant whose state changed
+     */
+    public void invalidateTenant(long tenantId) {
+        if (!enabled) {
+            return;
+        }
+        LOGGER.debug("Invalidating cached auth claims of tenant {}", tenantId);
+        cache.asMap().values().removeIf(claim -> claim.getTenantId() == tenantId);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
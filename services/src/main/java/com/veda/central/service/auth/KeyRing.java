@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.OctetKeyPair;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.util.Base64URL;
+import com.veda.central.service.util.TokenDigests;
+
+import java.nio.charset.StandardCharsets;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable version of the signing keys: the active key of each algorithm, used to sign new tokens, and the
+ * retiring keys, which no longer sign but are still published so that tokens they signed keep verifying.
+ * The JWKS document of the version is serialized once, together with its ETag.
+ */
+public class KeyRing {
+
+    // the X.509 encoding of an Ed25519 public key ends with the raw key
+    private static final int ED25519_KEY_LENGTH = 32;
+
+    private final long version;
+    private final Map<JWSAlgorithm, SigningKey> activeKeys;
+    private final List<SigningKey> retiringKeys;
+    private final byte[] jwks;
+    private final String etag;
+
+    KeyRing(long version, Map<JWSAlgorithm, SigningKey> activeKeys, List<SigningKey> retiringKeys) {
+        this.version = version;
+        this.activeKeys = Collections.unmodifiableMap(activeKeys);
+        this.retiringKeys = Collections.unmodifiableList(retiringKeys);
+
+        List<JWK> keys = new ArrayList<>();
+        activeKeys.values().forEach(key -> keys.add(toPublicJWK(key)));
+        retiringKeys.forEach(key -> keys.add(toPublicJWK(key)));
+        this.jwks = new JWKSet(keys).toString(true).getBytes(StandardCharsets.UTF_8);
+        this.etag = "\"" + TokenDigests.fingerprint(new String(jwks, StandardCharsets.UTF_8)) + "\"";
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the active key of the given algorithm, or null if no key pair is configured for it.
+     */
+    public SigningKey getActiveKey(JWSAlgorithm algorithm) {
+        return activeKeys.get(algorithm);
+    }
+
+    public Collection<SigningKey> getActiveKeys() {
+        return activeKeys.values();
+    }
+
+    public List<SigningKey> getRetiringKeys() {
+        return retiringKeys;
+    }
+
+    /**
+     * Returns the serialized JWKS document with the public keys of the ring. The array must not be modified.
+     */
+    public byte[] getJwks() {
+        return jwks;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    private static JWK toPublicJWK(SigningKey key) {
+        if (JWSAlgorithm.ES256.equals(key.getAlgorithm())) {
+            return new ECKey.Builder(Curve.P_256, (ECPublicKey) key.getKeyPair().getPublic())
+                    .keyID(key.getKeyID())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(key.getAlgorithm())
+                    .build();
+        }
+        if (JWSAlgorithm.EdDSA.equals(key.getAlgorithm())) {
+            byte[] encoded = key.getKeyPair().getPublic().getEncoded();
+            byte[] rawKey = Arrays.copyOfRange(encoded, encoded.length - ED25519_KEY_LENGTH, encoded.length);
+            return new OctetKeyPair.Builder(Curve.Ed25519, Base64URL.encode(rawKey))
+                    .keyID(key.getKeyID())
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(key.getAlgorithm())
+                    .build();
+        }
+        return new RSAKey.Builder((RSAPublicKey) key.getKeyPair().getPublic())
+                .keyID(key.getKeyID())
+                .keyUse(KeyUse.SIGNATURE)
+                .algorithm(key.getAlgorithm())
+                .build();
+    }
+}
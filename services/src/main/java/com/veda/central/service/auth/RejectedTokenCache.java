@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veda.central.service.util.TokenDigests;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short lived cache of token fingerprints that were rejected by the credential store, so that clients retrying
+ * with invalid credentials are refused without reaching Vault or the database. Every rejection is counted per client id,
+ * the number of tracked client ids is capped by a meter filter.
+ */
+@Component
+public class RejectedTokenCache {
+
+    public static final String REJECTIONS_METRIC = "veda.auth.token.rejections";
+    public static final String CLIENT_ID_TAG = "client_id";
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final boolean enabled;
+    // token fingerprint -> client id the token was issued for
+    private final Cache<String, String> rejectedTokens;
+    private final MeterRegistry meterRegistry;
+
+    public RejectedTokenCache(@Value("${veda-auth.identity.auth.rejected-token-cache.enabled:true}") boolean enabled,
+                              @Value("${veda-auth.identity.auth.rejected-token-cache.size:10000}") long maxSize,
+                              @Value("${veda-auth.identity.auth.rejected-token-cache.ttl:30}") long ttlSeconds,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.rejectedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Checks whether the token was rejected recently. A hit is counted as a rejection of the client.
+     */
+    public boolean isRejected(String token) {
+        if (!enabled || token == null) {
+            return false;
+        }
+        String clientId = rejectedTokens.getIfPresent(TokenDigests.fingerprint(token));
+        if (clientId == null) {
+            return false;
+        }
+        countRejection(clientId);
+        return true;
+    }
+
+    public void reject(String token, String clientId) {
+        String client = clientId != null ? clientId : UNKNOWN_CLIENT;
+        if (enabled && token != null) {
+            rejectedTokens.put(TokenDigests.fingerprint(token), client);
+        }
+        countRejection(client);
+    }
+
+    private void countRejection(String clientId) {
+        Counter.builder(REJECTIONS_METRIC)
+                .description("Number of requests rejected due to invalid client credentials or malformed tokens")
+                .tag(CLIENT_ID_TAG, clientId)
+                .register(meterRegistry)
+                .increment();
+    }
+}
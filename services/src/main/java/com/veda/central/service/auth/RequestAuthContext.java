@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.veda.central.core.credential.store.api.CredentialMetadata;
+import com.veda.central.core.identity.api.AuthToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Resolves the {@link AuthClaim} and the IAM service account token of the current HTTP request at most once,
+ * memoizing them as request attributes so composite operations do not authorize repeatedly.
+ * Outside of a request every call is delegated to the {@link TokenAuthorizer}.
+ */
+@Component
+public class RequestAuthContext {
+
+    private static final String CLAIM_ATTRIBUTE_PREFIX = RequestAuthContext.class.getName() + ".claim:";
+    private static final String CLIENT_CLAIM_ATTRIBUTE = RequestAuthContext.class.getName() + ".clientClaim";
+    private static final String USER_CLAIM_ATTRIBUTE = RequestAuthContext.class.getName() + ".userClaim";
+    private static final String USER_TOKEN_CLAIM_ATTRIBUTE = RequestAuthContext.class.getName() + ".userTokenClaim";
+    private static final String CREDENTIALS_ATTRIBUTE_PREFIX = RequestAuthContext.class.getName() + ".credentials:";
+    private static final String SA_TOKEN_ATTRIBUTE_PREFIX = RequestAuthContext.class.getName() + ".saToken:";
+    private static final String AUTHORIZATION_METRIC = "veda.auth.authorization";
+
+    private final TokenAuthorizer tokenAuthorizer;
+    private final Timer authorizationTimer;
+
+    public RequestAuthContext(TokenAuthorizer tokenAuthorizer, MeterRegistry meterRegistry) {
+        this.tokenAuthorizer = tokenAuthorizer;
+        this.authorizationTimer = Timer.builder(AUTHORIZATION_METRIC)
+                .description("Time taken to resolve the auth claim of a request")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Authorizes the request with the given client id, see {@link TokenAuthorizer#authorize(HttpHeaders, String)}.
+     */
+    public Optional<AuthClaim> authorize(HttpHeaders headers, String clientId) {
+        return memoize(CLAIM_ATTRIBUTE_PREFIX + clientId,
+                () -> authorizationTimer.record(() -> tokenAuthorizer.authorize(headers, clientId)));
+    }
+
+    /**
+     * Authorizes the request with the credentials of its bearer token, see {@link TokenAuthorizer#authorize(HttpHeaders)}.
+     */
+    public Optional<AuthClaim> authorize(HttpHeaders headers) {
+        return memoize(CLIENT_CLAIM_ATTRIBUTE, () -> authorizationTimer.record(() -> tokenAuthorizer.authorize(headers)));
+    }
+
+    /**
+     * Authorizes the request with the user token in its Authorization header, see {@link TokenAuthorizer#authorizeUsingUserToken(HttpHeaders)}.
+     */
+    public Optional<AuthClaim> authorizeUsingUserToken(HttpHeaders headers) {
+        return memoize(USER_CLAIM_ATTRIBUTE, () -> authorizationTimer.record(() -> tokenAuthorizer.authorizeUsingUserToken(headers)));
+    }
+
+    /**
+     * Authorizes the user token header of the request if present, see {@link TokenAuthorizer#validateUserToken(HttpHeaders)}.
+     */
+    public Optional<AuthClaim> validateUserToken(HttpHeaders headers) {
+        return memoize(USER_TOKEN_CLAIM_ATTRIBUTE, () -> authorizationTimer.record(() -> tokenAuthorizer.validateUserToken(headers)));
+    }
+
+    /**
+     * Returns the credential metadata of the given client id, see {@link TokenAuthorizer#getCredentialsFromClientId(String)}.
+     */
+    public CredentialMetadata getCredentialsFromClientId(String clientId) {
+        return memoize(CREDENTIALS_ATTRIBUTE_PREFIX + clientId,
+                () -> authorizationTimer.record(() -> tokenAuthorizer.getCredentialsFromClientId(clientId)));
+    }
+
+    /**
+     * Returns the IAM service account token of the tenant the claim belongs to.
+     */
+    public AuthToken getSAToken(AuthClaim authClaim) {
+        return memoize(SA_TOKEN_ATTRIBUTE_PREFIX + authClaim.getTenantId(),
+                () -> tokenAuthorizer.getSAToken(authClaim.getIamAuthId(), authClaim.getIamAuthSecret(), authClaim.getTenantId()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T memoize(String attribute, Supplier<T> supplier) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return supplier.get();
+        }
+
+        Object value = attributes.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (value == null) {
+            value = supplier.get();
+            attributes.setAttribute(attribute, value, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (T) value;
+    }
+}
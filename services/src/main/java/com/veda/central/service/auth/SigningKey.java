@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.nimbusds.jose.JWSAlgorithm;
+
+import java.security.KeyPair;
+
+/**
+ * A key pair used to sign the customized tokens, with the JWS algorithm it signs with and its key ID.
+ */
+public class SigningKey {
+
+    private final String keyID;
+    private final JWSAlgorithm algorithm;
+    private final KeyPair keyPair;
+
+    public SigningKey(String keyID, JWSAlgorithm algorithm, KeyPair keyPair) {
+        this.keyID = keyID;
+        this.algorithm = algorithm;
+        this.keyPair = keyPair;
+    }
+
+    public String getKeyID() {
+        return keyID;
+    }
+
+    public JWSAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public KeyPair getKeyPair() {
+        return keyPair;
+    }
+}
@@ -19,6 +19,7 @@
 
 package com.veda.central.service.auth;
 
+import com.nimbusds.jwt.JWTParser;
 import com.veda.central.api.exception.UnauthorizedException;
 import com.veda.central.core.constants.Constants;
 import com.veda.central.core.credential.store.api.CredentialMetadata;
@@ -31,13 +32,14 @@ import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.identity.api.Claim;
 import com.veda.central.core.identity.api.GetUserManagementSATokenRequest;
 import com.veda.central.core.identity.api.IsAuthenticatedResponse;
-import com.veda.central.core.tenant.profile.api.GetTenantRequest;
-import com.veda.central.core.tenant.profile.api.GetTenantResponse;
-import com.veda.central.core.tenant.profile.api.Tenant;
-import com.veda.central.core.tenant.profile.api.TenantStatus;
+import com.veda.central.service.credential.store.Credential;
+import com.veda.central.service.credential.store.CredentialManager;
 import com.veda.central.service.credential.store.CredentialStoreService;
+import com.veda.central.service.exceptions.AuthenticationException;
+import com.veda.central.service.exceptions.credential.store.CredentialGenerationException;
 import com.veda.central.service.identity.IdentityService;
-import com.veda.central.service.profile.TenantProfileService;
+import com.veda.central.service.profile.TenantDirectory;
+import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -53,14 +55,19 @@ public class TokenAuthorizer {
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenAuthorizer.class);
 
     private final CredentialStoreService credentialStoreService;
-    private final TenantProfileService tenantProfileService;
+    private final TenantDirectory tenantDirectory;
     private final IdentityService identityService;
+    private final AuthClaimCache authClaimCache;
+    private final RejectedTokenCache rejectedTokenCache;
 
 
-    public TokenAuthorizer(CredentialStoreService credentialStoreService, TenantProfileService tenantProfileService, IdentityService identityService) {
+    public TokenAuthorizer(CredentialStoreService credentialStoreService, TenantDirectory tenantDirectory,
+                           IdentityService identityService, AuthClaimCache authClaimCache, RejectedTokenCache rejectedTokenCache) {
         this.credentialStoreService = credentialStoreService;
-        this.tenantProfileService = tenantProfileService;
+        this.tenantDirectory = tenantDirectory;
         this.identityService = identityService;
+        this.authClaimCache = authClaimCache;
+        this.rejectedTokenCache = rejectedTokenCache;
     }
 
     public Optional<AuthClaim> authorize(HttpHeaders headers) {
@@ -91,16 +98,68 @@ public class TokenAuthorizer {
 
     public Optional<AuthClaim> authorize(String formattedToken) {
         try {
-            TokenRequest request = TokenRequest.newBuilder()
-                    .setToken(formattedToken)
-                    .build();
-            GetAllCredentialsResponse response = credentialStoreService.getAllCredentialsFromToken(request);
-            return getAuthClaim(response);
+            Optional<AuthClaim> cachedClaim = authClaimCache.get(formattedToken);
+            if (cachedClaim.isPresent()) {
+                return cachedClaim;
+            }
+
+            GetAllCredentialsResponse response = getAllCredentialsFromToken(formattedToken, AuthenticationScheme.CLIENT_CREDENTIALS);
+            Optional<AuthClaim> authClaim = getAuthClaim(response);
+            authClaim.ifPresent(claim -> authClaimCache.put(formattedToken, claim));
+            return authClaim;
         } catch (Exception ex) {
             throw new UnauthorizedException("Invalid token: " + ex.getMessage(), ex);
         }
     }
 
+    /**
+     * Resolves the credentials of the token. Tokens rejected by the credential store are remembered for a short
+     * period and refused without touching Vault or the database.
+     */
+    private GetAllCredentialsResponse getAllCredentialsFromToken(String formattedToken, AuthenticationScheme scheme) {
+        if (rejectedTokenCache.isRejected(formattedToken)) {
+            throw new UnauthorizedException("Invalid token", new AuthenticationException("Token was rejected recently"));
+        }
+
+        TokenRequest request = TokenRequest.newBuilder()
+                .setToken(formattedToken)
+                .build();
+        try {
+            return scheme == AuthenticationScheme.USER_TOKEN
+                    ? credentialStoreService.getAllCredentialsFromJWTToken(request)
+                    : credentialStoreService.getAllCredentialsFromToken(request);
+
+        } catch (Exception ex) {
+            if (isInvalidCredential(ex)) {
+                rejectedTokenCache.reject(formattedToken, getClientId(formattedToken, scheme));
+            }
+            throw ex;
+        }
+    }
+
+    private boolean isInvalidCredential(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EntityNotFoundException || cause instanceof AuthenticationException
+                    || cause instanceof CredentialGenerationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getClientId(String formattedToken, AuthenticationScheme scheme) {
+        try {
+            if (scheme == AuthenticationScheme.USER_TOKEN) {
+                return JWTParser.parse(formattedToken).getJWTClaimsSet().getStringClaim("azp");
+            }
+            Credential credential = CredentialManager.decodeToken(formattedToken);
+            return credential != null ? credential.getId() : null;
+
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
     private Optional<AuthClaim> getAuthClaim(GetAllCredentialsResponse response) {
         if (response == null || response.getSecretListList().isEmpty()) {
             return Optional.empty();
@@ -139,13 +198,7 @@ public class TokenAuthorizer {
                 }
         );
 
-        GetTenantRequest tenantRequest = GetTenantRequest.newBuilder()
-                .setTenantId(authClaim.getTenantId())
-                .build();
-
-        GetTenantResponse tentResp = tenantProfileService.getTenant(tenantRequest);
-
-        if (tentResp.getTenant().getTenantStatus().equals(TenantStatus.ACTIVE)) {
+        if (validateTenantStatus(authClaim.getTenantId())) {
             return Optional.of(authClaim);
         }
         return Optional.empty();
@@ -153,11 +206,7 @@ public class TokenAuthorizer {
 
     public Optional<AuthClaim> authorizeUsingUserToken(String formattedToken) {
         try {
-            TokenRequest request = TokenRequest.newBuilder()
-                    .setToken(formattedToken)
-                    .build();
-
-            GetAllCredentialsResponse response = credentialStoreService.getAllCredentialsFromJWTToken(request);
+            GetAllCredentialsResponse response = getAllCredentialsFromToken(formattedToken, AuthenticationScheme.USER_TOKEN);
             Optional<AuthClaim> claim = getAuthClaim(response);
             if (claim.isPresent()) {
 
@@ -170,9 +219,15 @@ public class TokenAuthorizer {
                         .setValue(String.valueOf(claim.get().getTenantId()))
                         .build();
 
+                Claim iamClientClaim = Claim.newBuilder()
+                        .setKey("iamClientId")
+                        .setValue(claim.get().getIamAuthId())
+                        .build();
+
                 List<Claim> claimList = new ArrayList<>();
                 claimList.add(userNameClaim);
                 claimList.add(tenantClaim);
+                claimList.add(iamClientClaim);
 
                 AuthToken token = AuthToken.newBuilder().
                         setAccessToken(formattedToken)
@@ -202,18 +257,17 @@ public class TokenAuthorizer {
             }
 
             Optional<String> userToken = getUserTokenFromUserTokenHeader(headers);
-            boolean isBasicAuth = isBasicAuth(headers);
-
-            if (clientId == null && userToken.isEmpty() && isBasicAuth) {
-                return authorize(headers);
+            if (clientId != null && userToken.isPresent()) {
+                return authorizeParentChildTenantWithBasicAuthAndUserTokenValidation(headers, clientId, userToken.get());
+            }
 
-            } else if (clientId != null && userToken.isEmpty() && isBasicAuth) {
-                return authorizeParentChildTenantValidationWithBasicAuth(headers, clientId);
+            // the scheme is decided from the token shape, so exactly one credential resolution runs per request
+            AuthenticationScheme scheme = userToken.isEmpty() ? getAuthenticationScheme(headers) : AuthenticationScheme.USER_TOKEN;
 
-            } else if (clientId != null && userToken.isPresent()) {
-                return authorizeParentChildTenantWithBasicAuthAndUserTokenValidation(headers, clientId, userToken.get());
+            if (scheme == AuthenticationScheme.CLIENT_CREDENTIALS) {
+                return clientId == null ? authorize(headers) : authorizeParentChildTenantValidationWithBasicAuth(headers, clientId);
 
-            } else if (clientId != null && isUserToken(headers)) {
+            } else if (clientId != null && scheme == AuthenticationScheme.USER_TOKEN) {
                 return authorizeParentChildTenantWithUserTokenValidation(headers, clientId);
 
             } else {
@@ -221,11 +275,27 @@ public class TokenAuthorizer {
             }
 
         } catch (Exception ex) {
-            LOGGER.error("Error while generating AuthClaims for authorize", ex);
+            if (isInvalidCredential(ex)) {
+                LOGGER.debug("Request rejected due to invalid credentials: {}", ex.getMessage());
+            } else {
+                LOGGER.error("Error while generating AuthClaims for authorize", ex);
+            }
             throw ex;
         }
     }
 
+    /**
+     * Classifies the bearer token without resolving it. JWTs carry three dot separated segments while
+     * client credential tokens are plain Base64, which never contains a dot.
+     */
+    public AuthenticationScheme getAuthenticationScheme(HttpHeaders headers) {
+        String token = getToken(headers);
+        if (token == null || token.isEmpty()) {
+            return AuthenticationScheme.NONE;
+        }
+        return token.chars().filter(ch -> ch == '.').count() == 2 ? AuthenticationScheme.USER_TOKEN : AuthenticationScheme.CLIENT_CREDENTIALS;
+    }
+
     public Optional<String> getUserTokenFromUserTokenHeader(HttpHeaders headers) {
         String header = headers.getFirst(Constants.USER_TOKEN);
         if (header != null && !header.trim().isEmpty()) {
@@ -235,15 +305,6 @@ public class TokenAuthorizer {
         }
     }
 
-    public boolean isBasicAuth(HttpHeaders headers) {
-        try {
-            this.authorize(headers);
-            return true;
-        } catch (Exception ex) {
-            return false;
-        }
-    }
-
     public Optional<AuthClaim> authorizeParentChildTenantValidationWithBasicAuth(HttpHeaders headers, String childClientId) {
         Optional<AuthClaim> authClaim = authorize(headers);
 
@@ -251,9 +312,7 @@ public class TokenAuthorizer {
             return authClaim;
         }
 
-        GetCredentialRequest request = GetCredentialRequest.newBuilder().setId(childClientId).build();
-        CredentialMetadata metadata = credentialStoreService.getVedaCredentialFromClientId(request);
-        GetAllCredentialsRequest credentialRequest = GetAllCredentialsRequest.newBuilder().setOwnerId(metadata.getOwnerId()).build();
+        GetAllCredentialsRequest credentialRequest = GetAllCredentialsRequest.newBuilder().setOwnerId(getOwnerId(childClientId)).build();
         GetAllCredentialsResponse allCredentials = credentialStoreService.getAllCredentials(credentialRequest);
 
         Optional<AuthClaim> childClaim = getAuthClaim(allCredentials);
@@ -267,17 +326,18 @@ public class TokenAuthorizer {
     }
 
     public boolean validateParentChildTenantRelationShip(long parentId, long childTenantId) {
-        GetTenantRequest childTenantReq = GetTenantRequest.newBuilder().setTenantId(childTenantId).build();
-        GetTenantResponse childTenantRes = tenantProfileService.getTenant(childTenantReq);
-        Tenant childTenant = childTenantRes.getTenant();
+        Optional<TenantDirectory.TenantEntry> childTenant = tenantDirectory.getTenant(childTenantId);
+        if (childTenant.isEmpty()) {
+            return false;
+        }
 
         // referring to same tenant
-        if (childTenant.getTenantId() == parentId) {
+        if (childTenantId == parentId) {
             return true;
         }
 
         //referring to child tenant
-        return childTenant.getTenantId() != parentId && childTenant.getParentTenantId() == parentId;
+        return childTenant.get().getParentId() == parentId;
     }
 
     public Optional<AuthClaim> authorizeParentChildTenantWithBasicAuthAndUserTokenValidation(HttpHeaders headers, String childClientId, String userToken) {
@@ -287,13 +347,11 @@ public class TokenAuthorizer {
             return Optional.empty();
         }
 
-        GetCredentialRequest request = GetCredentialRequest.newBuilder().setId(childClientId).build();
-        CredentialMetadata metadata = credentialStoreService.getVedaCredentialFromClientId(request);
-        Optional<AuthClaim> optionalAuthClaim = getAuthClaim(metadata);
+        // no credentials of the child are read afterwards, so the stored credential is resolved to check it still exists
+        long childTenantId = getCredentialsFromClientId(childClientId).getOwnerId();
 
-        if (optionalAuthClaim.isPresent() &&
-                validateTenantStatus(optionalAuthClaim.get().getTenantId()) &&
-                validateParentChildTenantRelationShip(authClaim.get().getTenantId(), optionalAuthClaim.get().getTenantId())) {
+        if (validateTenantStatus(childTenantId) &&
+                validateParentChildTenantRelationShip(authClaim.get().getTenantId(), childTenantId)) {
             return authorizeUsingUserToken(userToken);
         }
         return Optional.empty();
@@ -305,16 +363,15 @@ public class TokenAuthorizer {
         }
 
         Optional<AuthClaim> authClaim = authorizeUsingUserToken(headers);
-        GetCredentialRequest request = GetCredentialRequest.newBuilder().setId(childClientId).build();
-        CredentialMetadata metadata = credentialStoreService.getVedaCredentialFromClientId(request);
+        long childTenantId = getOwnerId(childClientId);
 
-        if (!validateTenantStatus(metadata.getOwnerId()) ||
+        if (!validateTenantStatus(childTenantId) ||
                 (authClaim.isPresent() && !authClaim.get().isSuperTenant() &&
-                        !validateParentChildTenantRelationShip(authClaim.get().getTenantId(), metadata.getOwnerId()))) {
+                        !validateParentChildTenantRelationShip(authClaim.get().getTenantId(), childTenantId))) {
             return Optional.empty();
         }
 
-        GetAllCredentialsRequest allReq = GetAllCredentialsRequest.newBuilder().setOwnerId(metadata.getOwnerId()).build();
+        GetAllCredentialsRequest allReq = GetAllCredentialsRequest.newBuilder().setOwnerId(childTenantId).build();
         GetAllCredentialsResponse response = credentialStoreService.getAllCredentials(allReq);
 
         return getAuthClaim(response);
@@ -335,15 +392,6 @@ public class TokenAuthorizer {
         }
     }
 
-    public boolean isUserToken(HttpHeaders headers) {
-        try {
-            this.authorizeUsingUserToken(headers);
-            return true;
-        } catch (Exception ex) {
-            return false;
-        }
-    }
-
     public AuthToken getSAToken(String clientId, String clientSec, long tenantId) {
         GetUserManagementSATokenRequest userManagementSATokenRequest = GetUserManagementSATokenRequest.newBuilder()
                 .setClientId(clientId)
@@ -381,40 +429,11 @@ public class TokenAuthorizer {
     }
 
     private boolean validateTenantStatus(long tenantId) {
-        GetTenantRequest tenantRequest = GetTenantRequest.newBuilder().setTenantId(tenantId).build();
-        GetTenantResponse tentResp = tenantProfileService.getTenant(tenantRequest);
-
-        return tentResp.getTenant().getTenantStatus().equals(TenantStatus.ACTIVE);
+        return tenantDirectory.isActive(tenantId);
     }
 
-    private Optional<AuthClaim> getAuthClaim(CredentialMetadata metadata) {
-        AuthClaim authClaim = new AuthClaim();
-        if (metadata.getType() == Type.VEDA) {
-            authClaim.setTenantId(metadata.getOwnerId());
-            authClaim.setVedaId(metadata.getId());
-            authClaim.setVedaSecret(metadata.getSecret());
-            authClaim.setVedaIdIssuedAt(metadata.getClientIdIssuedAt());
-            authClaim.setVedaSecretExpiredAt(metadata.getClientSecretExpiredAt());
-            authClaim.setAdmin(metadata.getSuperAdmin());
-            authClaim.setSuperTenant(metadata.getSuperTenant());
-
-        } else if (metadata.getType() == Type.IAM) {
-            authClaim.setIamAuthId(metadata.getId());
-            authClaim.setIamAuthSecret(metadata.getSecret());
-
-        } else if (metadata.getType() == Type.CILOGON) {
-            authClaim.setCiLogonId(metadata.getId());
-            authClaim.setCiLogonSecret(metadata.getSecret());
-
-        } else if (metadata.getType() == Type.AGENT_CLIENT) {
-            authClaim.setAgentClientId(metadata.getId());
-            authClaim.setAgentClientSecret(metadata.getSecret());
-
-        } else if (metadata.getType() == Type.AGENT) {
-            authClaim.setAgentId(metadata.getId());
-            authClaim.setAgentPassword(metadata.getInternalSec());
-        }
-
-        return Optional.of(authClaim);
+    private long getOwnerId(String clientId) {
+        return tenantDirectory.getOwnerId(clientId)
+                .orElseThrow(() -> new UnauthorizedException("Invalid client_id", null));
     }
 }
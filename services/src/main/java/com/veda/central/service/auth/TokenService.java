@@ -19,29 +19,23 @@
 
 package com.veda.central.service.auth;
 
-import com.nimbusds.jose.JOSEObjectType;
-import com.nimbusds.jose.JWSAlgorithm;
-import com.nimbusds.jose.JWSHeader;
-import com.nimbusds.jose.JWSSigner;
-import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
-import com.veda.central.core.model.user.Group;
-import com.veda.central.core.model.user.GroupRole;
-import com.veda.central.core.user.profile.api.UserProfile;
-import com.veda.central.core.user.profile.api.UserProfileRequest;
-import com.veda.central.service.profile.UserProfileService;
+import com.veda.central.service.profile.EffectiveClaims;
+import com.veda.central.service.profile.EffectiveClaimsCache;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
-import java.security.KeyPair;
 import java.text.ParseException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -51,22 +45,28 @@ public class TokenService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenService.class);
 
-    private final KeyLoader keyLoader;
-    private final UserProfileService userProfileService;
+    // claim carrying the sealed upstream token of a customized token
+    private static final String UPSTREAM_TOKEN_CLAIM = "kct";
+
+    private final TokenSigner tokenSigner;
+    private final EffectiveClaimsCache effectiveClaimsCache;
     private final CacheManager cacheManager;
+    private final UpstreamTokenSealer upstreamTokenSealer;
+    private final UpstreamTokenMode upstreamTokenMode;
 
     @Autowired
-    public TokenService(KeyLoader keyLoader, UserProfileService userProfileService, CacheManager cacheManager) {
-        this.keyLoader = keyLoader;
-        this.userProfileService = userProfileService;
+    public TokenService(TokenSigner tokenSigner, EffectiveClaimsCache effectiveClaimsCache, CacheManager cacheManager,
+                        UpstreamTokenSealer upstreamTokenSealer,
+                        @Value("${veda-auth.identity.auth.upstream-token.mode:cache}") String upstreamTokenMode) {
+        this.tokenSigner = tokenSigner;
+        this.effectiveClaimsCache = effectiveClaimsCache;
         this.cacheManager = cacheManager;
+        this.upstreamTokenSealer = upstreamTokenSealer;
+        this.upstreamTokenMode = UpstreamTokenMode.valueOf(upstreamTokenMode.trim().toUpperCase());
     }
 
 
     public String generateWithCustomClaims(String token, long tenantId) throws Exception {
-        KeyPair keyPair = keyLoader.getKeyPair();
-        String keyID = keyLoader.getKeyID();
-
         SignedJWT signedJWT = SignedJWT.parse(token);
 
         JWTClaimsSet oldClaims = signedJWT.getJWTClaimsSet();
@@ -76,22 +76,9 @@ public class TokenService {
         JWTClaimsSet newClaims = null;
         try {
             if (StringUtils.isNotBlank(email)) {
-                UserProfileRequest request = UserProfileRequest.newBuilder()
-                        .setTenantId(tenantId)
-                        .setProfile(UserProfile.newBuilder().setUsername(email).build())
-                        .build();
-
-                List<Group> groups = userProfileService.getGroupsOfUser(request);
-
-                List<String> groupIds = groups.stream()
-                        .map(Group::getExternalId)
-                        .toList();
-
-                List<String> scopes = groups.stream()
-                        .flatMap(group -> group.getGroupRole().stream())
-                        .map(GroupRole::getValue)
-                        .distinct()
-                        .toList();
+                EffectiveClaims effectiveClaims = getEffectiveClaims(tenantId, email);
+                List<String> groupIds = effectiveClaims.getGroups();
+                List<String> scopes = effectiveClaims.getScopes();
 
                 existingScopes.addAll(scopes);
 
@@ -107,23 +94,34 @@ public class TokenService {
             LOGGER.error("Error while adding custom claims to the token belongs to: {}", email);
         }
 
-        JWSHeader header = new JWSHeader.Builder(JWSAlgorithm.RS256)
-                .keyID(keyID)
-                .type(JOSEObjectType.JWT)
-                .build();
-
-        SignedJWT newSignedJWT = new SignedJWT(header, (newClaims != null ? newClaims : oldClaims));
-
-        JWSSigner signer = new RSASSASigner(keyPair.getPrivate());
-        newSignedJWT.sign(signer);
+        JWTClaimsSet claims = newClaims != null ? newClaims : oldClaims;
+        if (upstreamTokenMode == UpstreamTokenMode.EMBEDDED) {
+            claims = new JWTClaimsSet.Builder(claims)
+                    .claim(UPSTREAM_TOKEN_CLAIM, upstreamTokenSealer.seal(token))
+                    .build();
+        } else {
+            cacheToken(claims.getJWTID(), token);
+        }
 
-        cacheToken(newClaims.getJWTID(), token);
-        return newSignedJWT.serialize();
+        return tokenSigner.sign(claims, tenantId);
     }
 
     public String getKCToken(String customizedToken) throws ParseException {
         SignedJWT signedJWT = SignedJWT.parse(customizedToken);
-        String jwtId = signedJWT.getJWTClaimsSet().getJWTID();
+        JWTClaimsSet claims = signedJWT.getJWTClaimsSet();
+
+        // sealed tokens are honoured in both modes, so switching modes does not invalidate issued tokens
+        String sealedToken = claims.getStringClaim(UPSTREAM_TOKEN_CLAIM);
+        if (sealedToken != null) {
+            try {
+                return upstreamTokenSealer.unseal(sealedToken);
+            } catch (JOSEException ex) {
+                LOGGER.warn("Cannot unseal the upstream token of token {}: {}", claims.getJWTID(), ex.getMessage());
+                return null;
+            }
+        }
+
+        String jwtId = claims.getJWTID();
         Cache cache = cacheManager.getCache("KCTokenCache");
         if (cache != null) {
             Cache.ValueWrapper valueWrapper = cache.get(jwtId);
@@ -135,6 +133,18 @@ public class TokenService {
         return null;
     }
 
+    /**
+     * Returns the group and scope claims of the user, or none if they cannot be loaded. Failures are not cached.
+     */
+    private EffectiveClaims getEffectiveClaims(long tenantId, String username) {
+        try {
+            return effectiveClaimsCache.get(tenantId, username);
+        } catch (Exception ex) {
+            LOGGER.error("Error while loading the groups of user: {}", username, ex);
+            return new EffectiveClaims(Collections.emptyList(), Collections.emptyList());
+        }
+    }
+
     private void cacheToken(String jti, String token) {
         Cache cache = cacheManager.getCache("KCTokenCache");
         if (cache != null) {
@@ -142,4 +152,17 @@ public class TokenService {
         }
     }
 
+    /**
+     * How customized tokens are mapped back to the upstream Keycloak token.
+     */
+    public enum UpstreamTokenMode {
+        /**
+         * The upstream token is kept in the KCTokenCache of this node, keyed by the token ID.
+         */
+        CACHE,
+        /**
+         * The upstream token is sealed into a claim of the customized token.
+         */
+        EMBEDDED
+    }
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JOSEObjectType;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.impl.ECDSA;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signs the customized tokens. Signers are prepared once per signing key: the Base64URL encoded JWS header is
+ * serialized up front and every thread keeps a {@link Signature} already initialized with the private key, so signing
+ * a token only encodes the claims and computes the signature.
+ * The algorithm is RS256 unless configured otherwise, globally or per tenant, and requires the matching key pair.
+ * Signers are prepared again whenever {@link KeyLoader} loads a new version of the key ring.
+ */
+@Component
+public class TokenSigner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenSigner.class);
+
+    private static final String SIGN_METRIC = "veda.token.sign";
+    private static final String TENANT_ALGORITHM_PROPERTY = "veda-auth.keys.signing.tenants.";
+
+    private static final Map<JWSAlgorithm, String> SIGNATURE_ALGORITHMS = Map.of(
+            JWSAlgorithm.RS256, "SHA256withRSA",
+            JWSAlgorithm.ES256, "SHA256withECDSA",
+            JWSAlgorithm.EdDSA, "Ed25519");
+
+    private final KeyLoader keyLoader;
+    private final MeterRegistry meterRegistry;
+    private final Environment environment;
+    private final JWSAlgorithm defaultAlgorithm;
+    private final Map<Long, JWSAlgorithm> tenantAlgorithms = new ConcurrentHashMap<>();
+    // signers of the key ring version they were prepared for
+    private volatile long signersVersion;
+    private volatile Map<JWSAlgorithm, Signer> signers;
+
+    public TokenSigner(KeyLoader keyLoader, MeterRegistry meterRegistry, Environment environment,
+                       @Value("${veda-auth.keys.signing.algorithm:RS256}") String defaultAlgorithm) {
+        this.keyLoader = keyLoader;
+        this.meterRegistry = meterRegistry;
+        this.environment = environment;
+        this.defaultAlgorithm = JWSAlgorithm.parse(defaultAlgorithm);
+        if (keyLoader.getSigningKey(this.defaultAlgorithm) == null) {
+            throw new IllegalStateException("No signing key is configured for the default algorithm " + defaultAlgorithm);
+        }
+        getSigners();
+    }
+
+    /**
+     * Signs the claims with the algorithm of the tenant and returns the compact serialization of the token.
+     */
+    public String sign(JWTClaimsSet claims, long tenantId) throws JOSEException {
+        Map<JWSAlgorithm, Signer> current = getSigners();
+        Signer signer = current.get(tenantAlgorithms.computeIfAbsent(tenantId, this::resolveAlgorithm));
+        if (signer == null) {
+            signer = current.getOrDefault(defaultAlgorithm, current.get(JWSAlgorithm.RS256));
+        }
+        return signer.sign(claims);
+    }
+
+    /**
+     * Returns the signers of the current key ring, preparing new ones when the key ring was reloaded.
+     */
+    private Map<JWSAlgorithm, Signer> getSigners() {
+        KeyRing keyRing = keyLoader.getKeyRing();
+        if (signers != null && signersVersion == keyRing.getVersion()) {
+            return signers;
+        }
+        synchronized (this) {
+            if (signers == null || signersVersion != keyRing.getVersion()) {
+                Map<JWSAlgorithm, Signer> prepared = new HashMap<>();
+                for (SigningKey key : keyRing.getActiveKeys()) {
+                    prepared.put(key.getAlgorithm(), new Signer(key, Timer.builder(SIGN_METRIC)
+                            .description("Time taken to sign a customized token")
+                            .tag("algorithm", key.getAlgorithm().getName())
+                            .register(meterRegistry)));
+                }
+                if (!prepared.containsKey(defaultAlgorithm)) {
+                    LOGGER.warn("No signing key is configured for the default algorithm {}, signing with {}", defaultAlgorithm, JWSAlgorithm.RS256);
+                }
+                signers = prepared;
+                signersVersion = keyRing.getVersion();
+            }
+            return signers;
+        }
+    }
+
+    private JWSAlgorithm resolveAlgorithm(long tenantId) {
+        String algorithm = environment.getProperty(TENANT_ALGORITHM_PROPERTY + tenantId);
+        if (algorithm == null) {
+            return defaultAlgorithm;
+        }
+        if (keyLoader.getSigningKey(JWSAlgorithm.parse(algorithm)) == null) {
+            LOGGER.warn("No signing key is configured for {} requested by tenant {}, signing with {}", algorithm, tenantId, defaultAlgorithm);
+        }
+        return JWSAlgorithm.parse(algorithm);
+    }
+
+    private static class Signer {
+
+        private final SigningKey key;
+        private final String encodedHeader;
+        private final ThreadLocal<Signature> signatures;
+        private final Timer timer;
+
+        Signer(SigningKey key, Timer timer) {
+            this.key = key;
+            this.timer = timer;
+            this.encodedHeader = new JWSHeader.Builder(key.getAlgorithm())
+                    .keyID(key.getKeyID())
+                    .type(JOSEObjectType.JWT)
+                    .build()
+                    .toBase64URL()
+                    .toString();
+            this.signatures = ThreadLocal.withInitial(this::newSignature);
+        }
+
+        String sign(JWTClaimsSet claims) throws JOSEException {
+            long start = System.nanoTime();
+            try {
+                String signingInput = encodedHeader + "." + Base64URL.encode(claims.toString());
+                Signature signature = signatures.get();
+                signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+                byte[] signatureBytes = signature.sign();
+                if (JWSAlgorithm.ES256.equals(key.getAlgorithm())) {
+                    signatureBytes = ECDSA.transcodeSignatureToConcat(signatureBytes,
+                            ECDSA.getSignatureByteArrayLength(JWSAlgorithm.ES256));
+                }
+                return signingInput + "." + Base64URL.encode(signatureBytes);
+
+            } catch (GeneralSecurityException ex) {
+                // the signature may hold a partial update, start over with a fresh one on this thread
+                signatures.remove();
+                throw new JOSEException("Failed to sign the token with " + key.getAlgorithm() + ": " + ex.getMessage(), ex);
+            } finally {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Signature newSignature() {
+            try {
+                Signature signature = Signature.getInstance(SIGNATURE_ALGORITHMS.get(key.getAlgorithm()));
+                signature.initSign(key.getKeyPair().getPrivate());
+                return signature;
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("Failed to initialize the " + key.getAlgorithm() + " signer", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.nimbusds.jose.CompressionAlgorithm;
+import com.nimbusds.jose.EncryptionMethod;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWEAlgorithm;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWEObject;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.crypto.DirectDecrypter;
+import com.nimbusds.jose.crypto.DirectEncrypter;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Seals upstream Keycloak tokens into compact JWEs (direct AES-256-GCM, deflated) that can be embedded in the
+ * customized tokens, so they can be mapped back to the upstream token without server side state.
+ * The content encryption key is derived from the private part of a signing key of the {@link KeyRing}, so every
+ * replica sharing the keys can unseal, and the JWE key ID names the signing key. Tokens sealed with a key that was
+ * rotated out keep unsealing while the key is retiring with its private part.
+ */
+@Component
+public class UpstreamTokenSealer {
+
+    private static final String KEY_DERIVATION_ALGORITHM = "HmacSHA256";
+    private static final byte[] KEY_DERIVATION_LABEL = "veda-auth upstream token".getBytes(StandardCharsets.UTF_8);
+
+    private final KeyLoader keyLoader;
+    // key ID -> derived key, for the key ring version they were derived from
+    private volatile long keysVersion;
+    private volatile Map<String, SecretKey> keys;
+
+    public UpstreamTokenSealer(KeyLoader keyLoader) {
+        this.keyLoader = keyLoader;
+    }
+
+    public String seal(String upstreamToken) throws JOSEException {
+        SigningKey signingKey = keyLoader.getKeyRing().getActiveKey(JWSAlgorithm.RS256);
+        JWEHeader header = new JWEHeader.Builder(JWEAlgorithm.DIR, EncryptionMethod.A256GCM)
+                .compressionAlgorithm(CompressionAlgorithm.DEF)
+                .keyID(signingKey.getKeyID())
+                .build();
+        JWEObject jwe = new JWEObject(header, new Payload(upstreamToken));
+        jwe.encrypt(new DirectEncrypter(getKeys().get(signingKey.getKeyID())));
+        return jwe.serialize();
+    }
+
+    /**
+     * Returns the upstream token sealed in the given JWE.
+     *
+     * @throws JOSEException if the key that sealed it is no longer in the key ring or the JWE was tampered with
+     */
+    public String unseal(String sealedToken) throws ParseException, JOSEException {
+        JWEObject jwe = JWEObject.parse(sealedToken);
+        SecretKey key = getKeys().get(jwe.getHeader().getKeyID());
+        if (key == null) {
+            throw new JOSEException("Unknown upstream token sealing key " + jwe.getHeader().getKeyID());
+        }
+        jwe.decrypt(new DirectDecrypter(key));
+        return jwe.getPayload().toString();
+    }
+
+    private Map<String, SecretKey> getKeys() throws JOSEException {
+        KeyRing keyRing = keyLoader.getKeyRing();
+        if (keys != null && keysVersion == keyRing.getVersion()) {
+            return keys;
+        }
+        synchronized (this) {
+            if (keys == null || keysVersion != keyRing.getVersion()) {
+                List<SigningKey> signingKeys = new ArrayList<>(keyRing.getActiveKeys());
+                signingKeys.addAll(keyRing.getRetiringKeys());
+
+                Map<String, SecretKey> derived = new HashMap<>();
+                for (SigningKey signingKey : signingKeys) {
+                    if (signingKey.getKeyPair().getPrivate() != null) {
+                        derived.put(signingKey.getKeyID(), deriveKey(signingKey));
+                    }
+                }
+                keys = derived;
+                keysVersion = keyRing.getVersion();
+            }
+            return keys;
+        }
+    }
+
+    private static SecretKey deriveKey(SigningKey signingKey) throws JOSEException {
+        try {
+            Mac mac = Mac.getInstance(KEY_DERIVATION_ALGORITHM);
+            mac.init(new SecretKeySpec(signingKey.getKeyPair().getPrivate().getEncoded(), KEY_DERIVATION_ALGORITHM));
+            return new SecretKeySpec(mac.doFinal(KEY_DERIVATION_LABEL), "AES");
+        } catch (GeneralSecurityException ex) {
+            throw new JOSEException("Failed to derive the upstream token sealing key of " + signingKey.getKeyID(), ex);
+        }
+    }
+}
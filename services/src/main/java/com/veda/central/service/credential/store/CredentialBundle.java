@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.credential.store;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Representation of all main-type credentials of an owner stored as a single Vault document.
+ * The version is incremented on every rewrite of the bundle.
+ */
+public class CredentialBundle {
+
+    private long version;
+    private Map<String, Credential> credentials = new LinkedHashMap<>();
+
+    public CredentialBundle(long version, Map<String, Credential> credentials) {
+        this.version = version;
+        this.credentials = credentials;
+    }
+
+    public CredentialBundle() {
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Map<String, Credential> getCredentials() {
+        return credentials;
+    }
+
+    public void setCredentials(Map<String, Credential> credentials) {
+        this.credentials = credentials;
+    }
+}
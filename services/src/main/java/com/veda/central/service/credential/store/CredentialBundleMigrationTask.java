@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.credential.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Converts the per-type credential paths of every owner in Vault into single-document credential bundles.
+ * Runs on startup when enabled, and can be re-run at any time since the bundles are rebuilt from the per-type paths.
+ */
+@Component
+public class CredentialBundleMigrationTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CredentialBundleMigrationTask.class);
+
+    private final CredentialStoreService credentialStoreService;
+
+    @Value("${veda-auth.credential-store.bundle.enabled:false}")
+    private boolean bundleEnabled;
+
+    @Value("${veda-auth.credential-store.bundle.migrate-on-startup:false}")
+    private boolean migrateOnStartup;
+
+    public CredentialBundleMigrationTask(CredentialStoreService credentialStoreService) {
+        this.credentialStoreService = credentialStoreService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (bundleEnabled && migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    /**
+     * Builds or rebuilds the credential bundle of every owner.
+     *
+     * @return the number of owners migrated successfully
+     */
+    public int migrate() {
+        int migrated = 0;
+        int failed = 0;
+        for (String owner : credentialStoreService.getCredentialOwners()) {
+            try {
+                credentialStoreService.refreshCredentialBundle(owner);
+                migrated++;
+
+            } catch (Exception ex) {
+                failed++;
+                LOGGER.error("Error while migrating the credentials of owner {} to a bundle", owner, ex);
+            }
+        }
+        LOGGER.info("Credential bundle migration completed, {} owners migrated, {} failed", migrated, failed);
+        return migrated;
+    }
+}
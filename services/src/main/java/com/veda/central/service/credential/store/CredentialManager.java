@@ -25,6 +25,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.veda.central.core.model.credential.store.CredentialEntity;
 import com.veda.central.core.repo.credential.store.CredentialRepository;
 import com.veda.central.service.exceptions.credential.store.CredentialGenerationException;
+import com.veda.central.service.profile.TenantDirectory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,6 +57,9 @@ public class CredentialManager {
     @Autowired
     private CredentialRepository repository;
 
+    @Autowired
+    private TenantDirectory tenantDirectory;
+
 
     public Credential generateCredential(long ownerId, CredentialTypes type, long validTime) {
         try {
@@ -73,6 +77,7 @@ public class CredentialManager {
             credential.setSecret(secret);
 
             repository.save(entity);
+            tenantDirectory.addClient(ownerId, clientId);
 
             return credential;
 
@@ -37,17 +37,21 @@ import com.veda.central.core.credential.store.api.Type;
 import com.veda.central.core.model.commons.StatusEntity;
 import com.veda.central.core.model.credential.store.CredentialEntity;
 import com.veda.central.core.repo.credential.store.CredentialRepository;
+import com.veda.central.service.auth.AuthClaimCache;
 import com.veda.central.service.exceptions.AuthenticationException;
 import com.veda.central.service.exceptions.InternalServerException;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.vault.core.VaultTemplate;
 import org.springframework.vault.support.VaultResponseSupport;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -60,6 +64,9 @@ public class CredentialStoreService {
     private static final Logger LOGGER = LoggerFactory.getLogger(CredentialStoreService.class);
 
     private static final String BASE_PATH = "/secret/";
+    private static final String BUNDLE_OWNER = "bundle";
+    private static final String BUNDLE_BASE_PATH = BASE_PATH + BUNDLE_OWNER + "/";
+    private static final String MASTER_OWNER = "master";
 
     private final VaultTemplate vaultTemplate;
 
@@ -69,12 +76,22 @@ public class CredentialStoreService {
 
     private final CredentialRepository repository;
 
+    private final AuthClaimCache authClaimCache;
 
-    public CredentialStoreService(VaultTemplate vaultTemplate, StatusUpdater statusUpdater, CredentialManager credentialManager, CredentialRepository repository) {
+    private final VaultCredentialCache credentialCache;
+
+    @Value("${veda-auth.credential-store.bundle.enabled:false}")
+    private boolean bundleEnabled;
+
+    public CredentialStoreService(VaultTemplate vaultTemplate, StatusUpdater statusUpdater, CredentialManager credentialManager,
+                                  CredentialRepository repository, AuthClaimCache authClaimCache,
+                                  VaultCredentialCache credentialCache) {
         this.vaultTemplate = vaultTemplate;
         this.statusUpdater = statusUpdater;
         this.credentialManager = credentialManager;
         this.repository = repository;
+        this.authClaimCache = authClaimCache;
+        this.credentialCache = credentialCache;
     }
 
     public OperationStatus putCredential(CredentialMetadata request) {
@@ -86,6 +103,9 @@ public class CredentialStoreService {
             Credential credential = new Credential(request.getId(), request.getSecret());
             credential.setSuperTenant(request.getSuperTenant());
             vaultTemplate.write(path, credential);
+            invalidateOwner(String.valueOf(request.getOwnerId()));
+            refreshCredentialBundle(String.valueOf(request.getOwnerId()));
+            authClaimCache.invalidateTenant(request.getOwnerId());
             VaultResponseSupport<Credential> response = vaultTemplate.read(path, Credential.class);
 
             if (response != null && response.getData() != null && response.getData().getId() != null) {
@@ -122,15 +142,14 @@ public class CredentialStoreService {
         try {
             LOGGER.debug("Calling getSecret API for owner " + request.getOwnerId() + " for type " + request.getType());
             String path = BASE_PATH + request.getOwnerId() + "/" + request.getType().name();
-            VaultResponseSupport<Credential> response = vaultTemplate.read(path, Credential.class);
+            Credential credential = credentialCache.readCredential(path);
 
-            if (response == null || response.getData() == null) {
+            if (credential == null) {
                 String msg = "Cannot find credentials for " + request.getOwnerId() + " for type " + request.getType();
                 LOGGER.error(msg);
                 return CredentialMetadata.newBuilder().build();
             }
 
-            Credential credential = response.getData();
             CredentialMetadata.Builder secret = CredentialMetadata.newBuilder()
                     .setSecret(credential.getSecret())
                     .setId(credential.getId())
@@ -156,22 +175,10 @@ public class CredentialStoreService {
         try {
             LOGGER.debug("Calling getAllSecrets API for owner " + request.getOwnerId());
 
-            String subPath = BASE_PATH + request.getOwnerId();
-            List<String> paths = vaultTemplate.list(subPath);
+            Map<String, Credential> credentials = getOwnerCredentials(String.valueOf(request.getOwnerId()));
 
             List<CredentialMetadata> credentialMetadata = new ArrayList<>();
-            if (paths != null && !paths.isEmpty()) {
-                for (String key : paths) {
-                    if (isMainType(key)) {
-                        String path = subPath + "/" + key;
-                        VaultResponseSupport<Credential> crRe = vaultTemplate.read(path, Credential.class);
-                        if (crRe != null && crRe.getData() != null) {
-                            CredentialMetadata metadata = convertToCredentialMetadata(crRe.getData(), request.getOwnerId(), key);
-                            credentialMetadata.add(metadata);
-                        }
-                    }
-                }
-            }
+            credentials.forEach((key, value) -> credentialMetadata.add(convertToCredentialMetadata(value, request.getOwnerId(), key)));
             return GetAllCredentialsResponse.newBuilder().addAllSecretList(credentialMetadata).build();
 
         } catch (Exception ex) {
@@ -193,6 +200,9 @@ public class CredentialStoreService {
                     vaultTemplate.delete(path);
                 }
             }
+            invalidateOwner(String.valueOf(request.getOwnerId()));
+            refreshCredentialBundle(String.valueOf(request.getOwnerId()));
+            authClaimCache.invalidateTenant(request.getOwnerId());
 
             statusUpdater.updateStatus(Operations.DELETE_CREDENTIAL.name(),
                     com.veda.central.core.model.commons.OperationStatus.SUCCESS,
@@ -237,6 +247,8 @@ public class CredentialStoreService {
             Credential credential = credentialManager.generateCredential(request.getOwnerId(), CredentialTypes.VEDA, 0);
             String path = BASE_PATH + request.getOwnerId() + "/" + CredentialTypes.VEDA.name() + "/" + credential.getId();
             vaultTemplate.write(path, credential);
+            invalidateOwner(String.valueOf(request.getOwnerId()));
+            authClaimCache.invalidateTenant(request.getOwnerId());
 
             VaultResponseSupport<Credential> response = vaultTemplate.read(path, Credential.class);
             if (response == null || response.getData() == null || response.getData().getId() == null) {
@@ -332,9 +344,9 @@ public class CredentialStoreService {
             }
 
             String path = BASE_PATH + entity.getOwnerId() + "/" + Type.VEDA.name();
-            VaultResponseSupport<Credential> response = vaultTemplate.read(path, Credential.class);
+            Credential stored = credentialCache.readCredential(path);
 
-            if (response == null || response.getData() == null || !response.getData().getSecret().equals(credential.getSecret())) {
+            if (stored == null || !stored.getSecret().equals(credential.getSecret())) {
                 String msg = "Invalid secret for Id: " + credential.getId();
                 LOGGER.error(msg);
                 throw new AuthenticationException(msg);
@@ -370,13 +382,13 @@ public class CredentialStoreService {
             // TODO path should be considering the client too
             String path = BASE_PATH + entity.getOwnerId() + "/" + Type.VEDA.name() +  "/" + clientId;
 
-            VaultResponseSupport<Credential> response = vaultTemplate.read(path, Credential.class);
+            Credential stored = credentialCache.readCredential(path);
 
-            if (response == null || response.getData() == null) {
+            if (stored == null) {
 
                 path = BASE_PATH + entity.getOwnerId() + "/" + Type.VEDA.name();
-                response = vaultTemplate.read(path, Credential.class);
-                if (response == null || response.getData() == null) {
+                stored = credentialCache.readCredential(path);
+                if (stored == null) {
                     String msg = "Cannot find credentials for " + entity.getOwnerId() + " for type " + Type.VEDA.name();
                     LOGGER.error(msg);
                     throw new EntityNotFoundException(msg);
@@ -384,12 +396,12 @@ public class CredentialStoreService {
             }
 
             return CredentialMetadata.newBuilder()
-                    .setSecret(response.getData().getSecret())
+                    .setSecret(stored.getSecret())
                     .setId(request.getId())
                     .setOwnerId(entity.getOwnerId())
                     .setClientSecretExpiredAt(entity.getClientSecretExpiredAt())
                     .setClientIdIssuedAt(entity.getIssuedAt().getTime())
-                    .setSuperTenant(response.getData().isSuperTenant())
+                    .setSuperTenant(stored.isSuperTenant())
                     .setType(Type.VEDA).build();
 
         } catch (Exception ex) {
@@ -416,40 +428,26 @@ public class CredentialStoreService {
                 throw new EntityNotFoundException("Client not found");
             }
 
-            String subPath = BASE_PATH + entity.getOwnerId();
+            Map<String, Credential> credentials = getOwnerCredentials(String.valueOf(entity.getOwnerId()));
 
-            String validatingPath = BASE_PATH + entity.getOwnerId() + "/" + Type.VEDA.name();
-            VaultResponseSupport<Credential> validationResponse = vaultTemplate.read(validatingPath, Credential.class);
-
-            if (validationResponse == null || validationResponse.getData() == null || !validationResponse.getData().getSecret().equals(credential.getSecret())) {
+            Credential vedaCredential = credentials.get(Type.VEDA.name());
+            if (vedaCredential == null || vedaCredential.getSecret() == null || !vedaCredential.getSecret().equals(credential.getSecret())) {
                 String msg = "Invalid secret for Id: " + credential.getId();
                 LOGGER.error(msg);
                 throw new AuthenticationException(msg);
             }
 
-            List<String> paths = vaultTemplate.list(subPath);
-
             List<CredentialMetadata> credentialMetadata = new ArrayList<>();
-
-
-            if (paths != null && !paths.isEmpty()) {
-                for (String key : paths) {
-                    if (isMainType(key)) {
-                        String path = subPath + "/" + key;
-                        VaultResponseSupport<Credential> crRe = vaultTemplate.read(path, Credential.class);
-                        if (crRe != null && crRe.getData() != null) {
-                            CredentialMetadata metadata = convertToCredentialMetadata(crRe.getData(), entity.getOwnerId(), key);
-                            if (key.equals(Type.VEDA.name())) {
-                                metadata = metadata.toBuilder()
-                                        .setClientIdIssuedAt(entity.getIssuedAt().getTime())
-                                        .setClientSecretExpiredAt(entity.getClientSecretExpiredAt())
-                                        .build();
-                            }
-                            credentialMetadata.add(metadata);
-                        }
-                    }
+            credentials.forEach((key, value) -> {
+                CredentialMetadata metadata = convertToCredentialMetadata(value, entity.getOwnerId(), key);
+                if (key.equals(Type.VEDA.name())) {
+                    metadata = metadata.toBuilder()
+                            .setClientIdIssuedAt(entity.getIssuedAt().getTime())
+                            .setClientSecretExpiredAt(entity.getClientSecretExpiredAt())
+                            .build();
                 }
-            }
+                credentialMetadata.add(metadata);
+            });
             return GetAllCredentialsResponse.newBuilder().addAllSecretList(credentialMetadata).build();
 
         } catch (Exception ex) {
@@ -475,37 +473,34 @@ public class CredentialStoreService {
                 throw new EntityNotFoundException("Could not find the credential entity with the Id: " + credential.getId());
             }
 
-            String subPath = BASE_PATH + entity.getOwnerId();
-            List<String> paths = vaultTemplate.list(subPath);
+            Map<String, Credential> credentials = getOwnerCredentials(String.valueOf(entity.getOwnerId()));
             Credentials.Builder credentialsBuilder = Credentials.newBuilder();
 
-            if (paths != null && !paths.isEmpty()) {
-                for (String key : paths) {
-                    String path = subPath + "/" + key;
-                    VaultResponseSupport<Credential> crRe = vaultTemplate.read(path, Credential.class);
-                    if (crRe == null || crRe.getData() == null || crRe.getData().getSecret() == null) {
-                        LOGGER.error("Cannot find Credential with the Id: " + credential.getId() + " in the Secret store");
-                        throw new EntityNotFoundException("Cannot find Credential with the Id: " + credential.getId() + " in the Secret store");
-                    }
+            for (Map.Entry<String, Credential> entry : credentials.entrySet()) {
+                String key = entry.getKey();
+                Credential stored = entry.getValue();
+                if (stored.getSecret() == null) {
+                    LOGGER.error("Cannot find Credential with the Id: " + credential.getId() + " in the Secret store");
+                    throw new EntityNotFoundException("Cannot find Credential with the Id: " + credential.getId() + " in the Secret store");
+                }
 
-                    if (key.equals(Type.VEDA.name())) {
-                        if (!crRe.getData().getSecret().equals(credential.getSecret())) {
-                            String msg = "Invalid secret for id" + credential.getId();
-                            LOGGER.error(msg);
-                            throw new AuthenticationException(msg);
-                        }
+                if (key.equals(Type.VEDA.name())) {
+                    if (!stored.getSecret().equals(credential.getSecret())) {
+                        String msg = "Invalid secret for id" + credential.getId();
+                        LOGGER.error(msg);
+                        throw new AuthenticationException(msg);
+                    }
 
-                        credentialsBuilder.setVedaClientId(crRe.getData().getId())
-                                .setVedaClientSecret(crRe.getData().getSecret())
-                                .setVedaClientIdIssuedAt(entity.getIssuedAt().getTime())
-                                .setVedaClientSecretExpiredAt(entity.getClientSecretExpiredAt());
+                    credentialsBuilder.setVedaClientId(stored.getId())
+                            .setVedaClientSecret(stored.getSecret())
+                            .setVedaClientIdIssuedAt(entity.getIssuedAt().getTime())
+                            .setVedaClientSecretExpiredAt(entity.getClientSecretExpiredAt());
 
-                    } else if (key.equals(Type.IAM.name())) {
-                        credentialsBuilder.setIamClientId(crRe.getData().getId()).setIamClientSecret(crRe.getData().getSecret());
+                } else if (key.equals(Type.IAM.name())) {
+                    credentialsBuilder.setIamClientId(stored.getId()).setIamClientSecret(stored.getSecret());
 
-                    } else if (key.equals(Type.CILOGON.name())) {
-                        credentialsBuilder.setCiLogonClientId(crRe.getData().getId()).setCiLogonClientSecret(crRe.getData().getSecret());
-                    }
+                } else if (key.equals(Type.CILOGON.name())) {
+                    credentialsBuilder.setCiLogonClientId(stored.getId()).setCiLogonClientSecret(stored.getSecret());
                 }
             }
             return credentialsBuilder.build();
@@ -534,30 +529,21 @@ public class CredentialStoreService {
                 throw new EntityNotFoundException("Cannot find a CredentialEntity with the Id: " + credential.getId());
             }
 
-            String subPath = BASE_PATH + entity.getOwnerId();
-            List<String> paths = vaultTemplate.list(subPath);
+            Map<String, Credential> credentials = getOwnerCredentials(String.valueOf(entity.getOwnerId()));
 
             List<CredentialMetadata> credentialMetadata = new ArrayList<>();
-
-            if (paths != null && !paths.isEmpty()) {
-                for (String key : paths) {
-                    if (isMainType(key)) {
-                        String path = subPath + "/" + key;
-                        VaultResponseSupport<Credential> crRe = vaultTemplate.read(path, Credential.class);
-                        CredentialMetadata metadata = convertToCredentialMetadata(crRe.getData(), entity.getOwnerId(), key);
-
-                        if (key.equals(Type.VEDA.name())) {
-                            metadata = metadata.toBuilder()
-                                    .setClientIdIssuedAt(entity.getIssuedAt().getTime())
-                                    .setClientSecretExpiredAt(entity.getClientSecretExpiredAt())
-                                    .setSuperAdmin(credential.isAdmin())
-                                    .setSuperTenant(crRe.getData().isSuperTenant())
-                                    .build();
-                        }
-                        credentialMetadata.add(metadata);
-                    }
+            credentials.forEach((key, value) -> {
+                CredentialMetadata metadata = convertToCredentialMetadata(value, entity.getOwnerId(), key);
+                if (key.equals(Type.VEDA.name())) {
+                    metadata = metadata.toBuilder()
+                            .setClientIdIssuedAt(entity.getIssuedAt().getTime())
+                            .setClientSecretExpiredAt(entity.getClientSecretExpiredAt())
+                            .setSuperAdmin(credential.isAdmin())
+                            .setSuperTenant(value.isSuperTenant())
+                            .build();
                 }
-            }
+                credentialMetadata.add(metadata);
+            });
 
             return GetAllCredentialsResponse.newBuilder()
                     .addAllSecretList(credentialMetadata)
@@ -574,21 +560,10 @@ public class CredentialStoreService {
 
     public GetAllCredentialsResponse getMasterCredentials(GetCredentialRequest request) {
         try {
-            String subPath = BASE_PATH + "master";
-            List<String> paths = vaultTemplate.list(subPath);
+            Map<String, Credential> credentials = getOwnerCredentials(MASTER_OWNER);
 
             List<CredentialMetadata> credentialMetadata = new ArrayList<>();
-
-            if (paths != null && !paths.isEmpty()) {
-                for (String key : paths) {
-                    if (isMainType(key)) {
-                        String path = subPath + "/" + key;
-                        VaultResponseSupport<Credential> crRe = vaultTemplate.read(path, Credential.class);
-                        CredentialMetadata metadata = convertToCredentialMetadata(crRe.getData(), 0, key);
-                        credentialMetadata.add(metadata);
-                    }
-                }
-            }
+            credentials.forEach((key, value) -> credentialMetadata.add(convertToCredentialMetadata(value, 0, key)));
             return GetAllCredentialsResponse.newBuilder().addAllSecretList(credentialMetadata).build();
 
         } catch (Exception ex) {
@@ -598,6 +573,88 @@ public class CredentialStoreService {
         }
     }
 
+    /**
+     * Rebuilds the credential bundle of the given owner from the per-type Vault paths, which stay the source of truth.
+     * The bundle is removed when the owner has no main-type credentials left. No-op unless the bundle layout is enabled.
+     *
+     * @param ownerId the owner of the credentials, either a tenant id or "master"
+     */
+    public void refreshCredentialBundle(String ownerId) {
+        if (!bundleEnabled) {
+            return;
+        }
+
+        String bundlePath = BUNDLE_BASE_PATH + ownerId;
+        invalidateOwner(ownerId);
+        Map<String, Credential> credentials = readOwnerCredentialsFromPaths(ownerId);
+        if (credentials.isEmpty()) {
+            vaultTemplate.delete(bundlePath);
+            invalidateOwner(ownerId);
+            return;
+        }
+
+        CredentialBundle current = readCredentialBundle(ownerId);
+        long version = current != null ? current.getVersion() + 1 : 1;
+        vaultTemplate.write(bundlePath, new CredentialBundle(version, credentials));
+        invalidateOwner(ownerId);
+        LOGGER.debug("Credential bundle of owner {} written with version {}", ownerId, version);
+    }
+
+    /**
+     * Lists the owners that have credentials stored under the per-type Vault paths.
+     */
+    public List<String> getCredentialOwners() {
+        List<String> keys = vaultTemplate.list(BASE_PATH);
+        List<String> owners = new ArrayList<>();
+        if (keys != null) {
+            for (String key : keys) {
+                String owner = key.endsWith("/") ? key.substring(0, key.length() - 1) : key;
+                if (!owner.isEmpty() && !BUNDLE_OWNER.equals(owner)) {
+                    owners.add(owner);
+                }
+            }
+        }
+        return owners;
+    }
+
+    private Map<String, Credential> getOwnerCredentials(String ownerId) {
+        if (bundleEnabled) {
+            CredentialBundle bundle = readCredentialBundle(ownerId);
+            if (bundle != null && bundle.getCredentials() != null) {
+                return bundle.getCredentials();
+            }
+            LOGGER.debug("No credential bundle found for owner {}, reading the per-type paths", ownerId);
+        }
+        return readOwnerCredentialsFromPaths(ownerId);
+    }
+
+    private CredentialBundle readCredentialBundle(String ownerId) {
+        return credentialCache.readBundle(BUNDLE_BASE_PATH + ownerId);
+    }
+
+    private void invalidateOwner(String ownerId) {
+        credentialCache.invalidate(BASE_PATH + ownerId);
+        credentialCache.invalidate(BUNDLE_BASE_PATH + ownerId);
+    }
+
+    private Map<String, Credential> readOwnerCredentialsFromPaths(String ownerId) {
+        String subPath = BASE_PATH + ownerId;
+        List<String> paths = credentialCache.list(subPath);
+
+        Map<String, Credential> credentials = new LinkedHashMap<>();
+        if (paths != null && !paths.isEmpty()) {
+            for (String key : paths) {
+                if (isMainType(key)) {
+                    Credential credential = credentialCache.readCredential(subPath + "/" + key);
+                    if (credential != null) {
+                        credentials.put(key, credential);
+                    }
+                }
+            }
+        }
+        return credentials;
+    }
+
     private OperationMetadata convertFromEntity(StatusEntity entity) {
         return OperationMetadata.newBuilder()
                 .setEvent(entity.getEvent())
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.credential.store;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.vault.core.VaultTemplate;
+import org.springframework.vault.support.VaultResponseSupport;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Read-through cache of Vault credential reads and listings keyed by path.
+ * Entries accessed after the refresh interval are reloaded in the background while the cached value is served,
+ * so hot paths do not wait on Vault. Writers must invalidate the owner after changing its paths.
+ */
+@Component
+public class VaultCredentialCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VaultCredentialCache.class);
+
+    private final VaultTemplate vaultTemplate;
+    private final boolean enabled;
+    private final LoadingCache<VaultKey, Optional<Object>> cache;
+
+    public VaultCredentialCache(VaultTemplate vaultTemplate,
+                                @Value("${veda-auth.credential-store.cache.enabled:true}") boolean enabled,
+                                @Value("${veda-auth.credential-store.cache.size:10000}") long maxSize,
+                                @Value("${veda-auth.credential-store.cache.ttl:300}") long ttlSeconds,
+                                @Value("${veda-auth.credential-store.cache.refresh-interval:60}") long refreshSeconds) {
+        this.vaultTemplate = vaultTemplate;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .refreshAfterWrite(Duration.ofSeconds(Math.min(refreshSeconds, ttlSeconds)))
+                .build(this::load);
+    }
+
+    public Credential readCredential(String path) {
+        if (!enabled) {
+            return readData(path, Credential.class);
+        }
+        return (Credential) cache.get(new VaultKey(Kind.CREDENTIAL, path)).orElse(null);
+    }
+
+    public CredentialBundle readBundle(String path) {
+        if (!enabled) {
+            return readData(path, CredentialBundle.class);
+        }
+        return (CredentialBundle) cache.get(new VaultKey(Kind.BUNDLE, path)).orElse(null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> list(String path) {
+        if (!enabled) {
+            return vaultTemplate.list(path);
+        }
+        return (List<String>) cache.get(new VaultKey(Kind.LIST, path)).orElse(null);
+    }
+
+    /**
+     * Drops every cached read and listing under the given path, including the path itself.
+     *
+     * @param path the Vault path, e.g. /secret/{ownerId}
+     */
+    public void invalidate(String path) {
+        if (!enabled) {
+            return;
+        }
+        LOGGER.debug("Invalidating cached Vault reads under {}", path);
+        cache.asMap().keySet().removeIf(key -> key.path.equals(path) || key.path.startsWith(path + "/"));
+    }
+
+    private Optional<Object> load(VaultKey key) {
+        switch (key.kind) {
+            case CREDENTIAL:
+                return Optional.ofNullable(readData(key.path, Credential.class));
+            case BUNDLE:
+                return Optional.ofNullable(readData(key.path, CredentialBundle.class));
+            default:
+                return Optional.ofNullable(vaultTemplate.list(key.path));
+        }
+    }
+
+    private <T> T readData(String path, Class<T> type) {
+        VaultResponseSupport<T> response = vaultTemplate.read(path, type);
+        return response != null ? response.getData() : null;
+    }
+
+    private enum Kind {
+        CREDENTIAL, BUNDLE, LIST
+    }
+
+    private static final class VaultKey {
+
+        private final Kind kind;
+        private final String path;
+
+        private VaultKey(Kind kind, String path) {
+            this.kind = kind;
+            this.path = path;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof VaultKey)) return false;
+            VaultKey that = (VaultKey) o;
+            return kind == that.kind && path.equals(that.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kind, path);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs blocking {@link KeycloakClient} and {@code KeycloakAuthClient} calls asynchronously, so operations over many
+ * users take about the latency of the slowest call instead of the sum of all calls.
+ * Calls run on a bounded executor, and the number of calls in flight per tenant is limited so a large batch of one
+ * tenant cannot take over the executor. Submitting blocks the caller while its tenant is at the limit.
+ */
+@Component
+public class AsyncKeycloakClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncKeycloakClient.class);
+
+    private final ThreadPoolExecutor executor;
+    private final int tenantConcurrency;
+    private final Map<String, Semaphore> tenantPermits = new ConcurrentHashMap<>();
+
+    public AsyncKeycloakClient(@Value("${iam.server.async.parallelism:32}") int parallelism,
+                               @Value("${iam.server.async.queue-capacity:1000}") int queueCapacity,
+                               @Value("${iam.server.async.tenant-concurrency:8}") int tenantConcurrency) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "keycloak-async-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+        this.tenantConcurrency = tenantConcurrency;
+    }
+
+    /**
+     * Runs the given call asynchronously on behalf of the given tenant.
+     *
+     * @param tenantId  the tenant the call is made for
+     * @param operation the blocking call
+     * @return a future completed with the result of the call
+     */
+    public <T> CompletableFuture<T> supply(String tenantId, Supplier<T> operation) {
+        Semaphore permits = tenantPermits.computeIfAbsent(tenantId, k -> new Semaphore(tenantConcurrency));
+        try {
+            permits.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to call Keycloak for tenant " + tenantId, ex);
+        }
+
+        try {
+            CompletableFuture<T> future = CompletableFuture.supplyAsync(operation, executor);
+            future.whenComplete((result, ex) -> permits.release());
+            return future;
+        } catch (RejectedExecutionException ex) {
+            permits.release();
+            LOGGER.warn("Keycloak call queue is full, rejecting call for tenant " + tenantId);
+            throw ex;
+        }
+    }
+
+    /**
+     * Runs the given call for each of the items concurrently and returns the results in the order of the items.
+     *
+     * @throws RuntimeException the failure of the first call that failed
+     */
+    public <I, T> List<T> supplyAll(String tenantId, List<I> items, Function<I, T> operation) {
+        List<CompletableFuture<T>> futures = items.stream()
+                .map(item -> supply(tenantId, () -> operation.apply(item)))
+                .collect(Collectors.toList());
+        return joinAll(futures);
+    }
+
+    /**
+     * Waits for all the futures and returns their results in order, rethrowing the cause of the first failure.
+     */
+    public static <T> List<T> joinAll(List<CompletableFuture<T>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import jakarta.annotation.PreDestroy;
+import org.keycloak.admin.client.Keycloak;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.client.Client;
+
+/**
+ * Long-lived Keycloak admin clients sharing one pooled, keep-alive REST client.
+ * The master admin client keeps its access token and refreshes it before expiry, so admin operations do not log in
+ * per call. Clients handed out must not be closed by the callers, they are released when the application stops.
+ */
+@Component
+public class KeycloakAdminClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakAdminClient.class);
+
+    private final String serverURL;
+    private final Client restClient;
+    private final Keycloak adminClient;
+
+    public KeycloakAdminClient(KeycloakResilience resilience,
+                               @Value("${iam.server.url:https://auth.veda.usecustos.org/auth/}") String serverURL,
+                               @Value("${iam.server.client.id:admin-cli}") String clientId,
+                               @Value("${iam.server.admin.username}") String adminUsername,
+                               @Value("${iam.server.admin.password}") String adminPassword,
+                               @Value("${iam.server.super.admin.realm.id:master}") String adminRealm,
+                               @Value("${iam.server.admin.client.max-connections:100}") int maxConnections,
+                               @Value("${iam.server.admin.client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+                               @Value("${iam.server.admin.client.connection-ttl:300}") long connectionTTL,
+                               @Value("${iam.server.admin.client.token-min-validity:30}") long tokenMinValidity) {
+        this.serverURL = serverURL;
+        this.restClient = KeycloakUtils.getPooledRestClient(maxConnections, maxConnectionsPerRoute, connectionTTL, resilience);
+        this.adminClient = KeycloakUtils.getClient(serverURL, adminRealm, adminUsername, adminPassword, clientId, restClient);
+        this.adminClient.tokenManager().setMinTokenValidity(tokenMinValidity);
+    }
+
+    /**
+     * Returns the shared client logged in as the master admin.
+     */
+    public Keycloak getAdminClient() {
+        return adminClient;
+    }
+
+    /**
+     * Returns a client of the given realm authorized with the given access token, using the shared connection pool.
+     */
+    public Keycloak getClient(String realm, String accessToken) {
+        return KeycloakUtils.getClient(serverURL, realm, accessToken, restClient);
+    }
+
+    @PreDestroy
+    public void close() {
+        LOGGER.debug("Closing the Keycloak admin client");
+        adminClient.close();
+    }
+}
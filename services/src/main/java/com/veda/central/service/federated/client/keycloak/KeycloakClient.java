@@ -19,24 +19,29 @@
 
 package com.veda.central.service.federated.client.keycloak;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
 import com.veda.central.api.exception.UnauthorizedException;
 import com.veda.central.core.constants.Constants;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.resource.GroupResource;
 import org.keycloak.admin.client.resource.ProtocolMappersResource;
 import org.keycloak.admin.client.resource.RealmResource;
-import org.keycloak.admin.client.resource.RoleMappingResource;
-import org.keycloak.admin.client.resource.RoleResource;
 import org.keycloak.admin.client.resource.UserResource;
+import org.keycloak.admin.client.resource.UsersResource;
 import org.keycloak.representations.idm.ClientRepresentation;
 import org.keycloak.representations.idm.CredentialRepresentation;
-import org.keycloak.representations.idm.EventRepresentation;
 import org.keycloak.representations.idm.FederatedIdentityRepresentation;
 import org.keycloak.representations.idm.GroupRepresentation;
 import org.keycloak.representations.idm.IdentityProviderRepresentation;
-import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.PartialImportRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.keycloak.representations.idm.RealmEventsConfigRepresentation;
 import org.keycloak.representations.idm.RealmRepresentation;
@@ -52,17 +57,21 @@ import org.springframework.stereotype.Component;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.NotFoundException;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This class acts as a rest client for keycloak server
@@ -73,24 +82,23 @@ public class KeycloakClient {
 
     private static final int ACCESS_TOKEN_LIFE_SPAN = 1800;
     private static final int SESSION_IDLE_TIMEOUT = 3600;
+    private static final String REALM_MANAGEMENT_CLIENT = "realm-management";
+    private static final String MANAGE_USERS_ROLE = "manage-users";
+    private static final String PARTIAL_IMPORT_ADDED = "ADDED";
+    private static final String PARTIAL_IMPORT_SKIPPED = "SKIPPED";
 
     private final ObjectMapper objectMapper;
 
-    @Value("${iam.server.client.id:admin-cli}")
-    private String clientId;
+    private final KeycloakAdminClient keycloakAdminClient;
+
+    private final KeycloakRoleEnricher keycloakRoleEnricher;
+    private final KeycloakLastLoginIndex keycloakLastLoginIndex;
+    private final KeycloakRealmMetadataCache realmMetadataCache;
+    private final KeycloakHttpClient keycloakHttpClient;
 
     @Value("${iam.server.url:https://auth.veda.usecustos.org/auth/}")
     private String iamServerURL;
 
-    @Value("${iam.server.admin.username}")
-    private String superAdminUserName;
-
-    @Value("${iam.server.admin.password}")
-    private String superAdminPassword;
-
-    @Value("${iam.server.super.admin.realm.id:master}")
-    private String superAdminRealmID;
-
     @Value("${iam.federated.cilogon.authorization.endpoint:https://cilogon.org/authorize}")
     private String ciLogonAuthorizationEndpoint;
 
@@ -106,12 +114,23 @@ public class KeycloakClient {
     @Value("${iam.federated.cilogon.jwksUri:https://cilogon.org/oauth2/certs}")
     private String jwksUri;
 
-    public KeycloakClient(ObjectMapper objectMapper) {
+    @Value("${iam.server.users.page-size:100}")
+    private int userPageSize;
+
+    public KeycloakClient(ObjectMapper objectMapper, KeycloakAdminClient keycloakAdminClient,
+                          KeycloakRoleEnricher keycloakRoleEnricher, KeycloakLastLoginIndex keycloakLastLoginIndex,
+                          KeycloakRealmMetadataCache realmMetadataCache, KeycloakHttpClient keycloakHttpClient) {
         this.objectMapper = objectMapper;
+        this.keycloakAdminClient = keycloakAdminClient;
+        this.keycloakRoleEnricher = keycloakRoleEnricher;
+        this.keycloakLastLoginIndex = keycloakLastLoginIndex;
+        this.realmMetadataCache = realmMetadataCache;
+        this.keycloakHttpClient = keycloakHttpClient;
     }
 
     public void createRealm(String realmId, String displayName) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             // create realm
             RealmRepresentation newRealmDetails = new RealmRepresentation();
             newRealmDetails.setEnabled(true);
@@ -136,7 +155,8 @@ public class KeycloakClient {
 
 
     public void updateRealm(String realmId, String displayName) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             // create realm
             RealmResource realmResource = client.realm(realmId);
 
@@ -160,7 +180,8 @@ public class KeycloakClient {
 
     public boolean createRealmAdminAccount(String realmId, String adminUsername, String adminFirstname,
                                            String adminLastname, String adminEmail, String adminPassword) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation user = new UserRepresentation();
             user.setUsername(adminUsername);
             user.setFirstName(adminFirstname);
@@ -168,38 +189,34 @@ public class KeycloakClient {
             user.setEmail(adminEmail);
             user.setEmailVerified(true);
             user.setEnabled(true);
-            Response httpResponse = client.realm(realmId).users().create(user);
-            LOGGER.debug("Realm admin account creation exited with code : " + httpResponse.getStatus() + " : " + httpResponse.getStatusInfo());
-            if (httpResponse.getStatus() == HttpStatus.SC_CREATED) { //HTTP code for record creation: HTTP 201
-                List<UserRepresentation> retrieveCreatedUserList = client.realm(realmId).users().search(user.getUsername(),
-                        user.getFirstName(),
-                        user.getLastName(),
-                        user.getEmail(),
-                        0, 1);
-                UserResource retrievedUser = client.realm(realmId).users().get(retrieveCreatedUserList.get(0).getId());
-
-                // Add user to the "admin" role
-                RoleResource adminRoleResource = client.realm(realmId).roles().get("admin");
-                retrievedUser.roles().realmLevel().add(Collections.singletonList(adminRoleResource.toRepresentation()));
-
-                CredentialRepresentation credential = new CredentialRepresentation();
-                credential.setType(CredentialRepresentation.PASSWORD);
-                credential.setValue(adminPassword);
-                credential.setTemporary(false);
-                retrievedUser.resetPassword(credential);
-                List<ClientRepresentation> realmClients = client.realm(realmId).clients().findAll();
-                String realmManagementClientId = getRealmManagementClientId(client, realmId);
-                for (ClientRepresentation realmClient : realmClients) {
-                    if (realmClient.getClientId().equals("realm-management")) {
-                        realmManagementClientId = realmClient.getId();
-                    }
+            try (Response httpResponse = client.realm(realmId).users().create(user)) {
+                LOGGER.debug("Realm admin account creation exited with code : " + httpResponse.getStatus() + " : " + httpResponse.getStatusInfo());
+                if (httpResponse.getStatus() == HttpStatus.SC_CREATED) { //HTTP code for record creation: HTTP 201
+                    List<UserRepresentation> retrieveCreatedUserList = client.realm(realmId).users().search(user.getUsername(),
+                            user.getFirstName(),
+                            user.getLastName(),
+                            user.getEmail(),
+                            0, 1);
+                    UserResource retrievedUser = client.realm(realmId).users().get(retrieveCreatedUserList.get(0).getId());
+
+                    // Add user to the "admin" role
+                    RoleRepresentation adminRole = realmMetadataCache.getRealmRole(client, realmId, "admin");
+                    retrievedUser.roles().realmLevel().add(Collections.singletonList(adminRole));
+
+                    CredentialRepresentation credential = new CredentialRepresentation();
+                    credential.setType(CredentialRepresentation.PASSWORD);
+                    credential.setValue(adminPassword);
+                    credential.setTemporary(false);
+                    retrievedUser.resetPassword(credential);
+                    String realmManagementClientId = getRealmManagementClientId(client, realmId);
+                    retrievedUser.roles().clientLevel(realmManagementClientId).add(retrievedUser.roles().clientLevel(realmManagementClientId).listAvailable());
+                    keycloakRoleEnricher.invalidate(realmId);
+                    return true;
+                } else {
+                    LOGGER.error("Request for Tenant Admin Account Creation failed with HTTP code : " + httpResponse.getStatus());
+                    LOGGER.error("Reason for Tenant Admin account creation failure : " + httpResponse.getStatusInfo());
+                    throw new RuntimeException("Reason for Tenant Admin account creation failure : " + httpResponse.getStatusInfo(), null);
                 }
-                retrievedUser.roles().clientLevel(realmManagementClientId).add(retrievedUser.roles().clientLevel(realmManagementClientId).listAvailable());
-                return true;
-            } else {
-                LOGGER.error("Request for Tenant Admin Account Creation failed with HTTP code : " + httpResponse.getStatus());
-                LOGGER.error("Reason for Tenant Admin account creation failure : " + httpResponse.getStatusInfo());
-                throw new RuntimeException("Reason for Tenant Admin account creation failure : " + httpResponse.getStatusInfo(), null);
             }
         } catch (Exception ex) {
             String msg = "Error creating Realm Admin Account in keycloak server, reason: " + ex.getMessage();
@@ -211,7 +228,8 @@ public class KeycloakClient {
 
     public boolean updateRealmAdminAccount(String realmId, String adminUsername, String adminFirstname,
                                            String adminLastname, String adminEmail, String adminPassword) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation representation = getUserByUsername(client, realmId, adminUsername);
             if (representation != null) {
                 representation.setUsername(adminUsername);
@@ -234,17 +252,19 @@ public class KeycloakClient {
 
 
     public boolean grantAdminPrivilege(String realmId, String username) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation representation = getUserByUsername(client, realmId, username);
             if (representation != null) {
                 UserResource retrievedUser = client.realm(realmId).users().get(representation.getId());
-                RoleResource adminRoleResource = client.realm(realmId).roles().get("admin");
-                retrievedUser.roles().realmLevel().add(Collections.singletonList(adminRoleResource.toRepresentation()));
+                RoleRepresentation adminRole = realmMetadataCache.getRealmRole(client, realmId, "admin");
+                retrievedUser.roles().realmLevel().add(Collections.singletonList(adminRole));
 
                 String realmManagementClientId = getRealmManagementClientId(client, realmId);
 
                 retrievedUser.roles().clientLevel(realmManagementClientId).
                         add(retrievedUser.roles().clientLevel(realmManagementClientId).listAvailable());
+                keycloakRoleEnricher.invalidate(realmId);
                 return true;
 
             } else {
@@ -260,17 +280,19 @@ public class KeycloakClient {
     }
 
     public boolean removeAdminPrivilege(String realmId, String username) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation representation = getUserByUsername(client, realmId, username);
             if (representation != null) {
 
                 UserResource retrievedUser = client.realm(realmId).users().get(representation.getId());
-                RoleResource adminRoleResource = client.realm(realmId).roles().get("admin");
-                retrievedUser.roles().realmLevel().remove(Collections.singletonList(adminRoleResource.toRepresentation()));
+                RoleRepresentation adminRole = realmMetadataCache.getRealmRole(client, realmId, "admin");
+                retrievedUser.roles().realmLevel().remove(Collections.singletonList(adminRole));
                 String realmManagementClientId = getRealmManagementClientId(client, realmId);
 
                 retrievedUser.roles().clientLevel(realmManagementClientId).
                         remove(retrievedUser.roles().clientLevel(realmManagementClientId).listEffective());
+                keycloakRoleEnricher.invalidate(realmId);
                 return true;
 
             } else {
@@ -286,7 +308,8 @@ public class KeycloakClient {
 
 
     public KeycloakClientSecret configureClient(String realmId, String clientName, @NotNull String tenantURL, List<String> redirectUris) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             ClientRepresentation pgaClient = new ClientRepresentation();
             pgaClient.setName(clientName);
             pgaClient.setClientId(clientName);
@@ -330,6 +353,7 @@ public class KeycloakClient {
                                 .filter(r -> r.getName().equals("manage-users"))
                                 .collect(Collectors.toList());
                 serviceAccountUser.roles().clientLevel(realmManagementClientId).add(manageUsersRole);
+                keycloakRoleEnricher.invalidate(realmId);
 
                 if (httpResponse.getStatus() == HttpStatus.SC_CREATED) {
                     String ClientUUID = client.realms().realm(realmId).clients().findByClientId(pgaClient.getClientId()).get(0).getId();
@@ -351,7 +375,8 @@ public class KeycloakClient {
 
 
     public KeycloakClientSecret updateClient(String realmId, String clientName, @NotNull String tenantURL, List<String> redirectUris) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             List<ClientRepresentation> clientRepresentations = client.realm(realmId).clients().findByClientId(clientName);
 
             if (clientRepresentations == null || clientRepresentations.isEmpty()) {
@@ -387,7 +412,8 @@ public class KeycloakClient {
 
 
     public boolean isUsernameAvailable(String realmId, String username, String accessToken) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             return userRepresentation == null;
 
@@ -402,14 +428,14 @@ public class KeycloakClient {
     public boolean createUser(String realmId, String username, String newPassword, String firstName,
                               String lastName, String emailAddress, boolean tempPassowrd, String accessToken) throws UnauthorizedException {
 
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
-            UserRepresentation user = new UserRepresentation();
-            user.setUsername(username);
-            user.setFirstName(firstName);
-            user.setLastName(lastName);
-            user.setEmail(emailAddress);
-            user.setEnabled(false);
-            Response httpResponse = client.realm(realmId).users().create(user);
+        Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(username);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(emailAddress);
+        user.setEnabled(false);
+        try (Response httpResponse = client.realm(realmId).users().create(user)) {
 
             if (httpResponse.getStatus() == HttpStatus.SC_CREATED) { //HTTP code for record creation: HTTP 201
                 List<UserRepresentation> retrieveCreatedUserList = client.realm(realmId).users().search(user.getUsername(),
@@ -423,6 +449,7 @@ public class KeycloakClient {
                 credential.setValue(newPassword);
                 credential.setTemporary(tempPassowrd);
                 retrievedUser.resetPassword(credential);
+                keycloakRoleEnricher.invalidate(realmId);
                 return true;
 
             } else {
@@ -435,8 +462,91 @@ public class KeycloakClient {
     }
 
 
+    /**
+     * Checks whether the given access token is accepted by the realm and carries the realm-management
+     * manage-users role, i.e. whether the caller could have created the users itself.
+     *
+     * @param realmId     the ID of the realm
+     * @param accessToken the caller's access token
+     * @return true if the caller can manage users of the realm
+     */
+    public boolean canManageUsers(String realmId, String accessToken) {
+        try {
+            // Let Keycloak verify the token before trusting its claims
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
+            client.realm(realmId).users().count();
+
+            JWTClaimsSet claims = JWTParser.parse(accessToken).getJWTClaimsSet();
+            Map<String, Object> resourceAccess = claims.getJSONObjectClaim("resource_access");
+            if (resourceAccess == null || !(resourceAccess.get(REALM_MANAGEMENT_CLIENT) instanceof Map<?, ?> realmManagement)) {
+                return false;
+            }
+            return realmManagement.get("roles") instanceof List<?> roles && roles.contains(MANAGE_USERS_ROLE);
+
+        } catch (Exception ex) {
+            LOGGER.debug("Caller is not allowed to manage users of realm {}, reason: {}", realmId, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Imports the given users, with their credentials, roles and attributes, in a single partial import.
+     * Users that already exist are skipped. The import is transactional, so if any user is invalid nothing is imported.
+     * The import runs with the admin client, so callers must check {@link #canManageUsers(String, String)} first.
+     *
+     * @param realmId the ID of the realm
+     * @param users   the users to import
+     * @return the usernames that were not imported, mapped to the reason
+     * @throws RuntimeException if the import was rejected
+     */
+    public Map<String, String> importUsers(String realmId, List<UserRepresentation> users) {
+        PartialImportRepresentation partialImport = new PartialImportRepresentation();
+        partialImport.setIfResourceExists(PartialImportRepresentation.Policy.SKIP.name());
+        partialImport.setUsers(users);
+
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
+            Map<String, String> results;
+            try (Response response = client.realm(realmId).partialImport(partialImport)) {
+                String body = response.readEntity(String.class);
+                if (response.getStatus() != HttpStatus.SC_OK) {
+                    throw new RuntimeException("Partial import failed with HTTP " + response.getStatus() + ": " + body);
+                }
+                results = getImportActions(body);
+            }
+            keycloakRoleEnricher.invalidate(realmId);
+
+            Map<String, String> failures = new HashMap<>();
+            for (UserRepresentation user : users) {
+                String action = results.get(user.getUsername().toLowerCase());
+                if (!PARTIAL_IMPORT_ADDED.equals(action)) {
+                    failures.put(user.getUsername(), PARTIAL_IMPORT_SKIPPED.equals(action) ? "User already exists" : "User not imported");
+                }
+            }
+            return failures;
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while importing users to realm " + realmId + ", reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
+    private Map<String, String> getImportActions(String body) throws IOException {
+        Map<String, String> actions = new HashMap<>();
+        JsonNode results = objectMapper.readTree(body).path("results");
+        for (JsonNode result : results) {
+            if ("USER".equals(result.path("resourceType").asText())) {
+                actions.put(result.path("resourceName").asText().toLowerCase(), result.path("action").asText());
+            }
+        }
+        return actions;
+    }
+
+
     public boolean enableUserAccount(String realmId, String accessToken, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
 
             UserResource userResource = client.realm(realmId).users().get(userRepresentation.getId());
@@ -454,7 +564,8 @@ public class KeycloakClient {
 
 
     public boolean disableUserAccount(String realmId, String accessToken, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
 
             if (userRepresentation != null) {
@@ -473,7 +584,8 @@ public class KeycloakClient {
     }
 
     public boolean isUserAccountEnabled(String realmId, String accessToken, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             return userRepresentation != null && userRepresentation.isEnabled();
 
@@ -485,7 +597,8 @@ public class KeycloakClient {
     }
 
     public boolean isUserExist(String realmId, String accessToken, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             return userRepresentation != null;
 
@@ -497,7 +610,8 @@ public class KeycloakClient {
     }
 
     public UserRepresentation getUser(String realmId, String accessToken, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             return getUserByUsername(client, realmId, username);
 
         } catch (Exception ex) {
@@ -508,7 +622,8 @@ public class KeycloakClient {
     }
 
     public UserRepresentation getUser(String realmId, String username) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             return getUserByUsername(client, realmId, username);
 
         } catch (Exception ex) {
@@ -522,7 +637,8 @@ public class KeycloakClient {
     public List<UserRepresentation> getUsers(String accessToken, String realmId, int offset, int limit,
                                              String username, String firstName, String lastName,
                                              String email, String search) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             return searchUsers(client, realmId, username, firstName, lastName, email, search, offset, limit);
 
         } catch (Exception ex) {
@@ -534,7 +650,8 @@ public class KeycloakClient {
 
 
     public boolean resetUserPassword(String accessToken, String realmId, String username, String newPassword) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             if (userRepresentation != null) {
                 UserResource retrievedUser = client.realm(realmId).users().get(userRepresentation.getId());
@@ -562,7 +679,8 @@ public class KeycloakClient {
 
 
     public List<UserRepresentation> findUser(String accessToken, String realmId, String email, String userName) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             return client.realm(realmId).users().search(userName, null, null, email, 0, 1);
         } catch (Exception ex) {
             String msg = "Error finding user in keycloak server, reason: " + ex.getMessage();
@@ -574,7 +692,8 @@ public class KeycloakClient {
     public void updateUserRepresentation(String accessToken, String realmId, String username,
                                          String firstname, String lastName, String email) {
 
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             if (userRepresentation != null) {
                 userRepresentation.setFirstName(firstname);
@@ -595,10 +714,12 @@ public class KeycloakClient {
 
 
     public boolean deleteUser(String accessToken, String realmId, String username) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             if (userRepresentation != null) {
                 client.realm(realmId).users().delete(userRepresentation.getId());
+                keycloakRoleEnricher.invalidate(realmId);
                 return true;
             } else {
                 throw new RuntimeException("User [" + username + "] wasn't found in Keycloak!");
@@ -614,33 +735,37 @@ public class KeycloakClient {
     public boolean addRolesToUsers(String accessToken, String realmId, List<String> users,
                                    List<String> roles, String clientId, boolean clientLevel) {
 
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
+
+            // The client and the roles are the same for every user, so they are resolved once
+            String clientUUID = null;
+            List<RoleRepresentation> roleRepresentations = new ArrayList<>();
+            if (clientLevel) {
+                clientUUID = realmMetadataCache.getClient(client, realmId, clientId).getId();
+                for (String role : roles) {
+                    roleRepresentations.add(realmMetadataCache.getClientRole(client, realmId, clientUUID, role));
+                }
+            } else {
+                for (String role : roles) {
+                    roleRepresentations.add(realmMetadataCache.getRealmRole(client, realmId, role));
+                }
+            }
+
             for (String username : users) {
 
                 UserRepresentation representation = getUserByUsername(client, realmId, username.toLowerCase());
-                ClientRepresentation clientRepresentation = client.realm(realmId).clients().findByClientId(clientId).get(0);
                 if (representation != null) {
-                    RealmResource realmResource = client.realm(realmId);
                     UserResource resource = client.realm(realmId).users().get(representation.getId());
-                    List<RoleRepresentation> roleRepresentations = new ArrayList<>();
                     if (clientLevel) {
-                        for (String role : roles) {
-                            RoleResource roleResource = realmResource.clients().get(clientRepresentation.getId()).roles().get(role);
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
-                        resource.roles().clientLevel(clientRepresentation.getId()).add(roleRepresentations);
-
+                        resource.roles().clientLevel(clientUUID).add(roleRepresentations);
                     } else {
-
-                        for (String role : roles) {
-                            RoleResource roleResource = client.realm(realmId).roles().get(role);
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
                         resource.roles().realmLevel().add(roleRepresentations);
                     }
 
                 }
             }
+            keycloakRoleEnricher.invalidate(realmId);
             return true;
         } catch (Exception ex) {
             String msg = "Error while adding roles to user " + ex.getMessage();
@@ -653,7 +778,8 @@ public class KeycloakClient {
     public boolean removeRoleFromUser(String accessToken, String realmId, String username,
                                       List<String> roles, String clientId, boolean clientLevel) {
 
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation representation = getUserByUsername(client, realmId, username.toLowerCase());
 
             if (representation != null) {
@@ -667,11 +793,7 @@ public class KeycloakClient {
                         ClientRepresentation clientRep = clientRepresentationList.get(0);
                         List<RoleRepresentation> roleRepresentations = new ArrayList<>();
                         for (String roleName : roles) {
-                            RoleResource roleResource = client.realm(realmId).
-                                    clients().get(clientRep.getId()).roles().get(roleName);
-                            if (roleResource != null) {
-                                roleRepresentations.add(roleResource.toRepresentation());
-                            }
+                            roleRepresentations.add(realmMetadataCache.getClientRole(client, realmId, clientRep.getId(), roleName));
                         }
                         if (!roleRepresentations.isEmpty()) {
                             retrievedUser.roles().clientLevel(clientRep.getId()).remove(roleRepresentations);
@@ -682,16 +804,14 @@ public class KeycloakClient {
                 } else {
                     List<RoleRepresentation> roleRepresentations = new ArrayList<>();
                     for (String roleName : roles) {
-                        RoleResource roleResource = client.realm(realmId).roles().get(roleName);
-                        if (roleResource != null) {
-                            roleRepresentations.add(roleResource.toRepresentation());
-                        }
+                        roleRepresentations.add(realmMetadataCache.getRealmRole(client, realmId, roleName));
                     }
                     if (!roleRepresentations.isEmpty()) {
                         retrievedUser.roles().realmLevel().remove(roleRepresentations);
                     }
                 }
             }
+            keycloakRoleEnricher.invalidate(realmId);
             return true;
         } catch (Exception ex) {
             String msg = "Error removing roles from user , reason " + ex.getMessage();
@@ -702,7 +822,8 @@ public class KeycloakClient {
 
 
     public boolean deleteRealm(String realmId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
 
             if (realmResource != null) {
@@ -716,13 +837,17 @@ public class KeycloakClient {
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+        realmMetadataCache.invalidate(realmId);
+        keycloakRoleEnricher.invalidate(realmId);
+        keycloakLastLoginIndex.invalidate(realmId);
         return true;
 
     }
 
 
     public boolean configureOIDCFederatedIDP(String realmId, String displayName, String scopes, KeycloakClientSecret secret, Map<String, String> configs) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
 
             List<IdentityProviderRepresentation> representations = realmResource.identityProviders().findAll();
@@ -751,7 +876,7 @@ public class KeycloakClient {
             idp.getConfig().put("jwksUri", jwksUri);
             idp.getConfig().put("forwardParameters", "idphint");
 
-            realmResource.identityProviders().create(idp);
+            realmResource.identityProviders().create(idp).close();
 
         } catch (Exception ex) {
             String msg = "Error occurred while configuring  IDP in Keycloak Server, reason: " + ex.getMessage();
@@ -771,7 +896,8 @@ public class KeycloakClient {
      * @return
      */
     public boolean addUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             RealmResource realmResource = client.realm(realmId);
 
             for (String user : users) {
@@ -816,7 +942,8 @@ public class KeycloakClient {
      * @throws RuntimeException if an error occurs while deleting user attributes.
      */
     public boolean deleteUserAttributes(String realmId, String accessToken, Map<String, List<String>> attributeMap, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             RealmResource realmResource = client.realm(realmId);
 
             for (String user : users) {
@@ -858,7 +985,8 @@ public class KeycloakClient {
      */
     public boolean addProtocolMapper(ProtocolMapperRepresentation protocolMapperRepresentation,
                                      String realmId, String clientId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
 
             RealmResource realmResource = client.realm(realmId);
 
@@ -879,27 +1007,83 @@ public class KeycloakClient {
 
     /**
      * Retrieves a list of UserRepresentation objects for all users in the specified realm.
+     * Prefer {@link #streamUserPages(String)} for large realms.
      *
      * @param realmId The ID of the realm from which to retrieve the users.
      * @return A List of UserRepresentation objects containing the user details.
      * @throws RuntimeException if an error occurred while fetching the user details.
      */
     public List<UserRepresentation> getAllUsers(String realmId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            List<UserRepresentation> representations = client.realm(realmId).users().list();
-            List<UserRepresentation> representationList = new ArrayList<>();
-            if (representations != null && !representations.isEmpty()) {
-                for (UserRepresentation userRepresentation : representations) {
-                    UserRepresentation userRep = getUserByUsername(client, realmId, userRepresentation.getUsername());
-                    representationList.add(userRep);
+        return streamUserPages(realmId)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the users of the specified realm page by page, with their roles populated.
+     * Pages are fetched lazily as the stream is consumed, so only one page is held in memory at a time.
+     *
+     * @param realmId The ID of the realm from which to retrieve the users.
+     * @return A sequential stream of user pages.
+     * @throws RuntimeException if an error occurred while fetching a page.
+     */
+    public Stream<List<UserRepresentation>> streamUserPages(String realmId) {
+        Keycloak client = keycloakAdminClient.getAdminClient();
+        UsersResource usersResource = client.realm(realmId).users();
+
+        Iterator<List<UserRepresentation>> pages = new Iterator<>() {
+            private int first = 0;
+            private boolean lastPage = false;
+            private List<UserRepresentation> nextPage;
+
+            @Override
+            public boolean hasNext() {
+                if (nextPage == null && !lastPage) {
+                    nextPage = fetchPage();
                 }
+                return nextPage != null && !nextPage.isEmpty();
             }
-            return representationList;
-        } catch (Exception ex) {
-            String msg = "Error occurred while adding protocol mappers in Keycloak Server, reason: " + ex.getMessage();
-            LOGGER.error(msg, ex);
-            throw new RuntimeException(msg, ex);
-        }
+
+            @Override
+            public List<UserRepresentation> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<UserRepresentation> page = nextPage;
+                nextPage = null;
+                return page;
+            }
+
+            private List<UserRepresentation> fetchPage() {
+                try {
+                    List<UserRepresentation> page = usersResource.list(first, userPageSize);
+                    if (page == null) {
+                        page = Collections.emptyList();
+                    }
+                    first += page.size();
+                    lastPage = page.size() < userPageSize;
+                    keycloakRoleEnricher.enrich(client, realmId, page);
+                    return page;
+
+                } catch (Exception ex) {
+                    String msg = "Error occurred while fetching users of realm " + realmId + ", reason: " + ex.getMessage();
+                    LOGGER.error(msg, ex);
+                    throw new RuntimeException(msg, ex);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Streams all users of the specified realm, see {@link #streamUserPages(String)}.
+     *
+     * @param realmId The ID of the realm from which to retrieve the users.
+     * @return A sequential stream of users.
+     */
+    public Stream<UserRepresentation> streamUsers(String realmId) {
+        return streamUserPages(realmId).flatMap(List::stream);
     }
 
 
@@ -914,7 +1098,8 @@ public class KeycloakClient {
      * @throws RuntimeException if an error occurs while adding roles in Keycloak Server.
      */
     public boolean addRoles(List<RoleRepresentation> roleRepresentations, String realmId, String clientId, boolean clientScope) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
 
             if (clientScope) {
@@ -935,6 +1120,7 @@ public class KeycloakClient {
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+        realmMetadataCache.invalidate(realmId);
         return true;
     }
 
@@ -949,7 +1135,8 @@ public class KeycloakClient {
      * @throws RuntimeException if an error occurs while deleting the role
      */
     public boolean deleteRole(String id, String realmId, String clientId, boolean clientScope) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
 
             if (clientScope) {
@@ -965,6 +1152,8 @@ public class KeycloakClient {
             LOGGER.error(msg, ex);
             throw new RuntimeException(msg, ex);
         }
+        realmMetadataCache.invalidate(realmId);
+        keycloakRoleEnricher.invalidate(realmId);
         return true;
     }
 
@@ -979,7 +1168,8 @@ public class KeycloakClient {
      * @throws RuntimeException If an error occurs while accessing the Keycloak Server.
      */
     public List<RoleRepresentation> getAllRoles(String realmId, String clientId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
 
             if (clientId != null) {
@@ -1010,7 +1200,8 @@ public class KeycloakClient {
      */
     public boolean configureEventPersistence(String realmId, String eventType, long time, boolean enableEvents, boolean isAdminEvent) {
 
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmEventsConfigRepresentation representation = client.realm(realmId).getRealmEventsConfig();
 
             if (isAdminEvent) {
@@ -1041,35 +1232,14 @@ public class KeycloakClient {
 
 
     /**
-     * Retrieve the last login event for a given user.
+     * Retrieve the time of the last login of a given user.
      *
      * @param realmId  the ID of the realm in which the user is authenticated
-     * @param clientId the ID of the client involved in the login
      * @param username the username of the user
-     * @return the most recent EventRepresentation object representing the last login event for the user,
-     * or null if no login event is found or an error occurred
+     * @return the time of the last login in epoch milliseconds, or null if no login event is found
      */
-    public EventRepresentation getLastLoginEvent(String realmId, String clientId, String username) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
-            List<EventRepresentation> eventRepresentations = client.realm(realmId).getEvents();
-
-            for (EventRepresentation representation : eventRepresentations) {
-                Map<String, String> map = representation.getDetails();
-                if (map != null && !map.isEmpty()) {
-                    for (String key : map.keySet()) {
-                        if (key.equals("username") && map.get(key).equals(username)) {
-                            return representation;
-                        }
-                    }
-                }
-            }
-            return null;
-
-        } catch (Exception ex) {
-            String msg = "Error occurred while pulling events, reason: " + ex.getMessage();
-            LOGGER.warn(msg, ex);
-            return null;
-        }
+    public Long getLastLoginTime(String realmId, String username) {
+        return keycloakLastLoginIndex.getLastLogin(realmId, username);
     }
 
     /**
@@ -1085,7 +1255,8 @@ public class KeycloakClient {
      */
     public UserSessionRepresentation getLatestSession(String realmId, String clientId, String accessToken, String username) {
 
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             List<UserRepresentation> userResourceList = client.realm(realmId).users().search(
                     username.toLowerCase(), null, null, null, null, null);
 
@@ -1106,9 +1277,35 @@ public class KeycloakClient {
         }
     }
 
+    /**
+     * Retrieves the latest session of a user that has already been looked up.
+     *
+     * @param realmId the ID of the realm
+     * @param user    the user, as returned by a search
+     * @return the latest UserSessionRepresentation if found, otherwise null
+     * @throws RuntimeException if an error occurs while retrieving the user sessions
+     */
+    public UserSessionRepresentation getLatestSession(String realmId, UserRepresentation user) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
+            List<UserSessionRepresentation> userSessionRepresentations = client.realm(realmId).users().get(user.getId()).getUserSessions();
+
+            if (userSessionRepresentations != null && !userSessionRepresentations.isEmpty()) {
+                return userSessionRepresentations.get(userSessionRepresentations.size() - 1);
+            }
+            return null;
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while pulling active user sessions, reason: " + ex.getMessage();
+            LOGGER.error(msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
 
     public boolean deleteExternalIDPLinks(String realmId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
             List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
             userResourceList.forEach(user -> {
@@ -1131,7 +1328,8 @@ public class KeycloakClient {
     }
 
     public boolean deleteExternalIDPLinks(String realmId, List<String> users) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
             List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
             userResourceList.forEach(user -> {
@@ -1159,7 +1357,8 @@ public class KeycloakClient {
 
     public List<FederatedIdentityRepresentation> getExternalIDPLinks(String realmId, String requestedUser) {
         List<FederatedIdentityRepresentation> arrayList = new ArrayList<>();
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             RealmResource realmResource = client.realm(realmId);
             List<UserRepresentation> userResourceList = client.realm(realmId).users().list();
             userResourceList.forEach(user -> {
@@ -1182,7 +1381,8 @@ public class KeycloakClient {
     }
 
     public void addExternalIDPLinks(String realmId, List<FederatedIdentityRepresentation> representations) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             if (representations != null && !representations.isEmpty()) {
                 representations.forEach(fed -> {
                     List<UserRepresentation> userRepresentationList = client.realm(realmId).users().search(fed.getUserName());
@@ -1214,64 +1414,58 @@ public class KeycloakClient {
      * @return A list of GroupRepresentation objects representing the created groups in Keycloak.
      */
     public List<GroupRepresentation> createGroups(String realmId, String clientId, String clientSec, List<GroupRepresentation> groupRepresentations) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             List<GroupRepresentation> representationList = new ArrayList<>();
 
             for (GroupRepresentation representation : groupRepresentations) {
-                Response response = client.realm(realmId).groups().add(representation);
+                try (Response response = client.realm(realmId).groups().add(representation)) {
 
-                if (response.getStatus() == HttpStatus.SC_CREATED) {
-                    String id = getCreatedId(response);
+                    if (response.getStatus() == HttpStatus.SC_CREATED) {
+                        String id = getCreatedId(response);
 
-                    if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
-                        List<RoleRepresentation> roleRepresentation = new ArrayList<>();
-                        for (String role : representation.getRealmRoles()) {
-                            RoleResource resource = client.realm(realmId).roles().get(role);
-                            if (resource != null) {
-                                roleRepresentation.add(resource.toRepresentation());
+                        if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
+                            List<RoleRepresentation> roleRepresentation = new ArrayList<>();
+                            for (String role : representation.getRealmRoles()) {
+                                roleRepresentation.add(realmMetadataCache.getRealmRole(client, realmId, role));
+                            }
+                            if (!roleRepresentation.isEmpty()) {
+                                client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
                             }
-                        }
-                        if (!roleRepresentation.isEmpty()) {
-                            client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
-                        }
-
-                    }
 
-                    if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
-                        List<RoleRepresentation> clientRepresentations = new ArrayList<>();
-                        ClientRepresentation clientRepresentation =
-                                client.realm(realmId).clients().findByClientId(clientId).get(0);
-                        for (String role : representation.getClientRoles().get(clientId)) {
+                        }
 
-                            RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
+                        if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
+                            List<RoleRepresentation> clientRepresentations = new ArrayList<>();
+                            ClientRepresentation clientRepresentation =
+                                    realmMetadataCache.getClient(client, realmId, clientId);
+                            for (String role : representation.getClientRoles().get(clientId)) {
 
-                            if (resource != null) {
-                                clientRepresentations.add(resource.toRepresentation());
+                                clientRepresentations.add(realmMetadataCache.getClientRole(client, realmId, clientRepresentation.getId(), role));
+                            }
+                            if (!clientRepresentations.isEmpty()) {
+                                client.realm(realmId).groups().group(id).roles().
+                                        clientLevel(clientRepresentation.getId()).add(clientRepresentations);
                             }
-                        }
-                        if (!clientRepresentations.isEmpty()) {
-                            client.realm(realmId).groups().group(id).roles().
-                                    clientLevel(clientRepresentation.getId()).add(clientRepresentations);
-                        }
 
-                    }
+                        }
 
-                    representation.setId(id);
-                    this.createGroup(client, realmId, clientId, representation);
-                    response.close();
-                    GroupRepresentation savedRep = client.realm(realmId).groups().group(representation.getId()).toRepresentation();
-                    representationList.add(savedRep);
-                    return representationList;
+                        representation.setId(id);
+                        this.createGroup(client, realmId, clientId, representation);
+                        GroupRepresentation savedRep = client.realm(realmId).groups().group(representation.getId()).toRepresentation();
+                        representationList.add(savedRep);
+                        return representationList;
 
-                } else if (response.getStatus() == HttpStatus.SC_UNAUTHORIZED) {
-                    String msg = "Error occurred while creating group, reason: HTTP " + response.getStatus() + " Unauthorized";
-                    LOGGER.error(msg);
-                    throw new RuntimeException(msg);
+                    } else if (response.getStatus() == HttpStatus.SC_UNAUTHORIZED) {
+                        String msg = "Error occurred while creating group, reason: HTTP " + response.getStatus() + " Unauthorized";
+                        LOGGER.error(msg);
+                        throw new RuntimeException(msg);
 
-                } else {
-                    String msg = "Error occurred while creating group, reason: HTTP  " + response.getStatus();
-                    LOGGER.error(msg);
-                    throw new RuntimeException(msg);
+                    } else {
+                        String msg = "Error occurred while creating group, reason: HTTP  " + response.getStatus();
+                        LOGGER.error(msg);
+                        throw new RuntimeException(msg);
+                    }
                 }
             }
         } catch (Exception ex) {
@@ -1293,7 +1487,8 @@ public class KeycloakClient {
      * @return The updated group representation.
      */
     public GroupRepresentation updateGroup(String realmId, String clientId, String clientSec, GroupRepresentation groupRepresentation) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             client.realm(realmId).groups().group(groupRepresentation.getId()).update(groupRepresentation);
 
             List<RoleRepresentation> exRoles = client.realm(realmId).groups().group(groupRepresentation.getId()).roles().realmLevel().listAll();
@@ -1305,10 +1500,7 @@ public class KeycloakClient {
             if (groupRepresentation.getRealmRoles() != null && !groupRepresentation.getRealmRoles().isEmpty()) {
                 List<RoleRepresentation> roleRepresentation = new ArrayList<>();
                 for (String role : groupRepresentation.getRealmRoles()) {
-                    RoleResource resource = client.realm(realmId).roles().get(role);
-                    if (resource != null) {
-                        roleRepresentation.add(resource.toRepresentation());
-                    }
+                    roleRepresentation.add(realmMetadataCache.getRealmRole(client, realmId, role));
                 }
                 if (!roleRepresentation.isEmpty()) {
                     client.realm(realmId).groups().group(groupRepresentation.getId()).roles().realmLevel().add(roleRepresentation);
@@ -1316,7 +1508,7 @@ public class KeycloakClient {
 
             }
 
-            ClientRepresentation clientRepresentation = client.realm(realmId).clients().findByClientId(clientId).get(0);
+            ClientRepresentation clientRepresentation = realmMetadataCache.getClient(client, realmId, clientId);
 
             List<RoleRepresentation> exClientRoles = client.realm(realmId).groups().group(groupRepresentation.getId())
                     .roles().clientLevel(clientRepresentation.getId()).listAll();
@@ -1330,11 +1522,7 @@ public class KeycloakClient {
                 List<RoleRepresentation> clientRepresentations = new ArrayList<>();
 
                 for (String role : groupRepresentation.getClientRoles().get(clientId)) {
-                    RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
-
-                    if (resource != null) {
-                        clientRepresentations.add(resource.toRepresentation());
-                    }
+                    clientRepresentations.add(realmMetadataCache.getClientRole(client, realmId, clientRepresentation.getId(), role));
                 }
                 if (!clientRepresentations.isEmpty()) {
                     client.realm(realmId).groups().group(groupRepresentation.getId()).roles().
@@ -1363,7 +1551,8 @@ public class KeycloakClient {
      * @return true if the group is deleted successfully, false otherwise
      */
     public boolean deleteGroup(String realmId, String clientId, String clientSec, String groupId) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             String id = client.realm(realmId).groups().group(groupId).toRepresentation().getId();
             client.realm(realmId).groups().group(id).remove();
             return true;
@@ -1385,7 +1574,8 @@ public class KeycloakClient {
      * @return the GroupRepresentation object representing the found group, or null if not found or an error occurred
      */
     public GroupRepresentation findGroup(String realmId, String accessToken, String id, String name) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             if (id != null && !id.trim().isEmpty()) {
                 GroupResource resource = client.realm(realmId).groups().group(id);
                 if (resource != null) {
@@ -1421,7 +1611,8 @@ public class KeycloakClient {
      * Returns null if an HTTP 404 error occurs.
      */
     public List<GroupRepresentation> getAllGroups(String realmId, String accessToken) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             List<GroupRepresentation> groupRepresentations = new ArrayList<>();
 
             for (GroupRepresentation representation : client.realm(realmId).groups().groups()) {
@@ -1444,7 +1635,8 @@ public class KeycloakClient {
 
 
     public boolean addUserToGroup(String realmId, String username, String groupId, String accessToken) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             client.realm(realmId).users().get(userRepresentation.getId()).joinGroup(groupId);
             return true;
@@ -1458,7 +1650,8 @@ public class KeycloakClient {
 
 
     public boolean removeUserFromGroup(String realmId, String username, String groupId, String accessToken) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             UserRepresentation userRepresentation = getUserByUsername(client, realmId, username);
             client.realm(realmId).users().get(userRepresentation.getId()).leaveGroup(groupId);
             return true;
@@ -1472,7 +1665,8 @@ public class KeycloakClient {
 
 
     public boolean configureAgentClient(String realmId, String clientId, long accessTokenLifeTime) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             ClientRepresentation representation = client.realm(realmId).clients().findByClientId(clientId).get(0);
 
             if (representation != null) {
@@ -1497,7 +1691,8 @@ public class KeycloakClient {
 
 
     public boolean isValidEndUser(String realmId, String username, String accessToken) {
-        try (Keycloak client = getClient(iamServerURL, realmId, accessToken)) {
+        try {
+            Keycloak client = keycloakAdminClient.getClient(realmId, accessToken);
             return isValidEndUser(client, realmId, username);
         } catch (Exception ex) {
             String msg = "Error occurred end user validity: " + ex.getMessage();
@@ -1507,7 +1702,8 @@ public class KeycloakClient {
     }
 
     public boolean isValidEndUser(String realmId, String username) {
-        try (Keycloak client = getClient(iamServerURL, superAdminRealmID, superAdminUserName, superAdminPassword)) {
+        try {
+            Keycloak client = keycloakAdminClient.getAdminClient();
             return isValidEndUser(client, realmId, username);
         } catch (Exception ex) {
             String msg = "Error occurred end user validity: " + ex.getMessage();
@@ -1519,21 +1715,16 @@ public class KeycloakClient {
     public Map<String, Object> getUserInfo(String accessToken, long realmId) {
         String userInfoEndpoint = iamServerURL + "realms/" + realmId + "/protocol/openid-connect/userinfo";
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(userInfoEndpoint))
-                .header("Authorization", "Bearer " + accessToken)
-                .header("Accept", "application/json")
-                .GET()
-                .build();
-
-        HttpClient client = HttpClient.newHttpClient();
+        HttpGet request = new HttpGet(userInfoEndpoint);
+        request.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + accessToken);
+        request.setHeader(HttpHeaders.ACCEPT, "application/json");
 
-        try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            if (response.statusCode() == 200) {
-                return objectMapper.readValue(response.body(), Map.class);
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.USERINFO, request)) {
+            String body = EntityUtils.toString(response.getEntity());
+            if (response.getStatusLine().getStatusCode() == 200) {
+                return objectMapper.readValue(body, Map.class);
             } else {
-                throw new IllegalStateException("Failed to fetch user info: Status code " + response.statusCode());
+                throw new IllegalStateException("Failed to fetch user info: Status code " + response.getStatusLine().getStatusCode());
             }
         } catch (Exception e) {
             throw new RuntimeException("Error fetching user info", e);
@@ -1543,11 +1734,16 @@ public class KeycloakClient {
 
     private boolean isValidEndUser(Keycloak client, String realmId, String username) {
         UserRepresentation representation = getUserByUsername(client, realmId, username);
+        return representation != null && isEndUser(representation);
+    }
 
-        if (representation == null) {
-            return false;
-        }
-
+    /**
+     * Checks whether the given user is an end user rather than an agent, using the attributes already fetched.
+     *
+     * @param representation the user as returned by a search
+     * @return true if the user is not an agent
+     */
+    public static boolean isEndUser(UserRepresentation representation) {
         Map<String, List<String>> attributes = representation.getAttributes();
 
         if (attributes != null && !attributes.isEmpty()) {
@@ -1563,14 +1759,6 @@ public class KeycloakClient {
     }
 
 
-    private Keycloak getClient(String adminUrl, String realm, String loginUsername, String password) {
-        return KeycloakUtils.getClient(adminUrl, realm, loginUsername, password, clientId);
-    }
-
-    private Keycloak getClient(String adminUrl, String realm, String accessToken) {
-        return KeycloakUtils.getClient(adminUrl, realm, accessToken);
-    }
-
 
     private RealmRepresentation createDefaultRoles(RealmRepresentation realmDetails) {
         List<RoleRepresentation> defaultRoles = new ArrayList<RoleRepresentation>();
@@ -1587,27 +1775,19 @@ public class KeycloakClient {
 
 
     private String getRealmManagementClientId(Keycloak client, String realmId) {
-        List<ClientRepresentation> realmClients = client.realm(realmId).clients().findAll();
-        String realmManagementClientId = null;
-        for (ClientRepresentation realmClient : realmClients) {
-            if (realmClient.getClientId().equals("realm-management")) {
-                realmManagementClientId = realmClient.getId();
-            }
+        try {
+            return realmMetadataCache.getClient(client, realmId, REALM_MANAGEMENT_CLIENT).getId();
+        } catch (NotFoundException ex) {
+            return null;
         }
-        return realmManagementClientId;
     }
 
     private Optional<String> getRealmManagementClientSecret(Keycloak client, String realmId) {
-        List<ClientRepresentation> realmClients = client.realm(realmId).clients().findAll();
-        String realmManagementClientId = null;
-        for (ClientRepresentation realmClient : realmClients) {
-            if (realmClient.getClientId().equals("realm-management")) {
-                realmManagementClientId = realmClient.getClientId();
-                String ClientUUID = client.realms().realm(realmId).clients().findByClientId(realmManagementClientId).get(0).getId();
-                return Optional.ofNullable(client.realms().realm(realmId).clients().get(ClientUUID).getSecret().getValue());
-            }
+        String clientUUID = getRealmManagementClientId(client, realmId);
+        if (clientUUID == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return Optional.ofNullable(client.realms().realm(realmId).clients().get(clientUUID).getSecret().getValue());
     }
 
 
@@ -1619,25 +1799,7 @@ public class KeycloakClient {
 
         for (UserRepresentation userRepresentation : userResourceList) {
             if (userRepresentation.getUsername().equals(username.toLowerCase())) {
-                RoleMappingResource resource = client.realm(tenantId).users().get(userRepresentation.getId()).roles();
-                MappingsRepresentation representation = resource.getAll();
-                if (representation != null && representation.getRealmMappings() != null) {
-                    List<String> roleRepresentations = new ArrayList<>();
-                    representation.getRealmMappings().forEach(t -> roleRepresentations.add(t.getName()));
-                    userRepresentation.setRealmRoles(roleRepresentations);
-                }
-                if (representation != null && representation.getClientMappings() != null) {
-                    Map<String, List<String>> roleRepresentations = new HashMap<>();
-                    representation.getClientMappings().keySet().forEach(key -> {
-                        if (representation.getClientMappings().get(key).getMappings() != null) {
-                            List<String> roleList = new ArrayList<>();
-                            representation.getClientMappings().get(key).getMappings().forEach(t -> roleList.add(t.getName()));
-                            roleRepresentations.put(key, roleList);
-                        }
-                    });
-                    userRepresentation.setClientRoles(roleRepresentations);
-                }
-
+                keycloakRoleEnricher.enrich(client, tenantId, Collections.singletonList(userRepresentation));
                 return userRepresentation;
             }
         }
@@ -1651,46 +1813,40 @@ public class KeycloakClient {
             List<GroupRepresentation> groupRepresentations = parentRepresentation.getSubGroups();
             if (groupRepresentations != null && !groupRepresentations.isEmpty()) {
                 for (GroupRepresentation representation : groupRepresentations) {
-                    Response createdRes = client.realm(realmId).groups().add(representation);
-                    String id = getCreatedId(createdRes);
-                    if (id != null) {
-                        representation.setId(id);
-                        Response response = client.realm(realmId).groups().group(parentRepresentation.getId()).subGroup(representation);
-                        if (response.getStatus() == HttpStatus.SC_CREATED || response.getStatus() == HttpStatus.SC_NO_CONTENT) {
-                            if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
-                                List<RoleRepresentation> roleRepresentation = new ArrayList<>();
-                                for (String role : representation.getRealmRoles()) {
-                                    RoleResource resource = client.realm(realmId).roles().get(role);
-                                    if (resource != null) {
-                                        roleRepresentation.add(resource.toRepresentation());
+                    try (Response createdRes = client.realm(realmId).groups().add(representation)) {
+                        String id = getCreatedId(createdRes);
+                        if (id != null) {
+                            representation.setId(id);
+                            Response response = client.realm(realmId).groups().group(parentRepresentation.getId()).subGroup(representation);
+                            if (response.getStatus() == HttpStatus.SC_CREATED || response.getStatus() == HttpStatus.SC_NO_CONTENT) {
+                                if (representation.getRealmRoles() != null && !representation.getRealmRoles().isEmpty()) {
+                                    List<RoleRepresentation> roleRepresentation = new ArrayList<>();
+                                    for (String role : representation.getRealmRoles()) {
+                                        roleRepresentation.add(realmMetadataCache.getRealmRole(client, realmId, role));
+                                    }
+                                    if (!roleRepresentation.isEmpty()) {
+                                        client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
                                     }
-                                }
-                                if (!roleRepresentation.isEmpty()) {
-                                    client.realm(realmId).groups().group(id).roles().realmLevel().add(roleRepresentation);
-                                }
-
-                            }
 
-                            if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
-                                List<RoleRepresentation> clientRepresentations = new ArrayList<>();
-                                ClientRepresentation clientRepresentation =
-                                        client.realm(realmId).clients().findByClientId(clientId).get(0);
-                                for (String role : representation.getClientRoles().get(clientId)) {
-                                    RoleResource resource = client.realm(realmId).clients().get(clientRepresentation.getId()).roles().get(role);
+                                }
 
-                                    if (resource != null) {
-                                        clientRepresentations.add(resource.toRepresentation());
+                                if (representation.getClientRoles() != null && !representation.getClientRoles().isEmpty()) {
+                                    List<RoleRepresentation> clientRepresentations = new ArrayList<>();
+                                    ClientRepresentation clientRepresentation =
+                                            realmMetadataCache.getClient(client, realmId, clientId);
+                                    for (String role : representation.getClientRoles().get(clientId)) {
+                                        clientRepresentations.add(realmMetadataCache.getClientRole(client, realmId, clientRepresentation.getId(), role));
+                                    }
+                                    if (!clientRepresentations.isEmpty()) {
+                                        client.realm(realmId).groups().group(id).roles().
+                                                clientLevel(clientRepresentation.getId()).add(clientRepresentations);
                                     }
-                                }
-                                if (!clientRepresentations.isEmpty()) {
-                                    client.realm(realmId).groups().group(id).roles().
-                                            clientLevel(clientRepresentation.getId()).add(clientRepresentations);
-                                }
 
+                                }
+                                createGroup(client, realmId, clientId, representation);
                             }
-                            createGroup(client, realmId, clientId, representation);
+                            response.close();
                         }
-                        response.close();
                     }
                 }
             }
@@ -1712,32 +1868,7 @@ public class KeycloakClient {
                     username.toLowerCase(), firstName, lastName, email, offset, limit);
         }
 
-        if (userResourceList != null && !userResourceList.isEmpty()) {
-            List<UserRepresentation> newList = new ArrayList<>();
-            for (UserRepresentation userRepresentation : userResourceList) {
-                RoleMappingResource resource = client.realm(tenantId).users().get(userRepresentation.getId()).roles();
-                MappingsRepresentation representation = resource.getAll();
-                if (representation != null && representation.getRealmMappings() != null) {
-                    List<String> roleRepresentations = new ArrayList<>();
-                    representation.getRealmMappings().forEach(t -> roleRepresentations.add(t.getName()));
-                    userRepresentation.setRealmRoles(roleRepresentations);
-                }
-                if (representation != null && representation.getClientMappings() != null) {
-                    Map<String, List<String>> roleRepresentations = new HashMap<>();
-                    representation.getClientMappings().keySet().forEach(key -> {
-                        if (representation.getClientMappings().get(key).getMappings() != null) {
-                            List<String> roleList = new ArrayList<>();
-                            representation.getClientMappings().get(key).getMappings().forEach(t -> roleList.add(t.getName()));
-                            roleRepresentations.put(key, roleList);
-                        }
-                    });
-                    userRepresentation.setClientRoles(roleRepresentations);
-                }
-                newList.add(userRepresentation);
-            }
-            return userResourceList;
-        }
-
+        keycloakRoleEnricher.enrich(client, tenantId, userResourceList);
         return userResourceList;
     }
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Shared, pooled HTTP client for the OpenID Connect endpoints of the Keycloak server (token, introspection, userinfo,
+ * discovery). Connections are kept alive and reused across calls, and the pool usage is published as gauges.
+ * The client must not be closed by the callers, it is released when the application stops.
+ */
+@Component
+public class KeycloakHttpClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakHttpClient.class);
+
+    private static final String POOL_METRIC_PREFIX = "veda.keycloak.http.pool.";
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    private final KeycloakResilience resilience;
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient httpClient;
+
+    public KeycloakHttpClient(MeterRegistry meterRegistry, KeycloakResilience resilience,
+                              @Value("${iam.server.http-client.max-connections:200}") int maxConnections,
+                              @Value("${iam.server.http-client.max-connections-per-route:100}") int maxConnectionsPerRoute,
+                              @Value("${iam.server.http-client.connect-timeout:5000}") int connectTimeout,
+                              @Value("${iam.server.http-client.read-timeout:10000}") int readTimeout,
+                              @Value("${iam.server.http-client.connection-request-timeout:5000}") int connectionRequestTimeout,
+                              @Value("${iam.server.http-client.connection-ttl:300}") long connectionTTL,
+                              @Value("${iam.server.http-client.idle-timeout:30}") long idleTimeout) {
+        this.resilience = resilience;
+        Registry<ConnectionSocketFactory> socketFactories = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build();
+        this.connectionManager = new PoolingHttpClientConnectionManager(socketFactories, null, null, null,
+                connectionTTL, TimeUnit.SECONDS);
+        this.connectionManager.setMaxTotal(maxConnections);
+        this.connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        this.connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(connectionRequestTimeout)
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
+                .build();
+
+        registerPoolGauge(meterRegistry, "leased", "Connections in use", PoolStats::getLeased);
+        registerPoolGauge(meterRegistry, "pending", "Requests waiting for a connection", PoolStats::getPending);
+        registerPoolGauge(meterRegistry, "available", "Idle connections kept alive", PoolStats::getAvailable);
+        registerPoolGauge(meterRegistry, "max", "Maximum number of connections", PoolStats::getMax);
+    }
+
+    /**
+     * Returns the shared client. Responses must be consumed or closed so their connections return to the pool.
+     */
+    public CloseableHttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Executes the request within the bulkhead and circuit breaker of the operation, counting 5xx responses as failures.
+     * The response must be consumed or closed so its connection returns to the pool.
+     */
+    public CloseableHttpResponse execute(KeycloakOperation operation, HttpUriRequest request) throws IOException {
+        return resilience.call(operation, () -> httpClient.execute(request),
+                response -> response.getStatusLine().getStatusCode() >= 500);
+    }
+
+    @PreDestroy
+    public void close() {
+        LOGGER.debug("Closing the Keycloak HTTP client");
+        try {
+            httpClient.close();
+        } catch (IOException ex) {
+            LOGGER.warn("Error occurred while closing the Keycloak HTTP client", ex);
+        }
+    }
+
+    private void registerPoolGauge(MeterRegistry meterRegistry, String name, String description, ToDoubleFunction<PoolStats> stat) {
+        Gauge.builder(POOL_METRIC_PREFIX + name, connectionManager, cm -> stat.applyAsDouble(cm.getTotalStats()))
+                .description(description)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.representations.idm.EventRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the latest login time of each user per realm, so the last login of a user is resolved without scanning the
+ * event store of the realm. LOGIN events are ingested incrementally, starting from the newest event seen by the
+ * previous ingestion, at most once per sync interval. The first ingestion of a realm only goes back the configured
+ * backfill window, so logins older than that are not reported.
+ */
+@Component
+public class KeycloakLastLoginIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakLastLoginIndex.class);
+
+    private static final List<String> LOGIN_EVENT_TYPES = Collections.singletonList("LOGIN");
+    private static final String USERNAME_DETAIL = "username";
+
+    private final KeycloakAdminClient keycloakAdminClient;
+    private final long syncIntervalMillis;
+    private final int pageSize;
+    private final int backfillDays;
+    private final Map<String, RealmLogins> realms = new ConcurrentHashMap<>();
+
+    public KeycloakLastLoginIndex(KeycloakAdminClient keycloakAdminClient,
+                                  @Value("${iam.server.last-login-index.sync-interval:30}") long syncInterval,
+                                  @Value("${iam.server.last-login-index.page-size:1000}") int pageSize,
+                                  @Value("${iam.server.last-login-index.backfill-days:30}") int backfillDays) {
+        this.keycloakAdminClient = keycloakAdminClient;
+        this.syncIntervalMillis = syncInterval * 1000;
+        this.pageSize = pageSize;
+        this.backfillDays = backfillDays;
+    }
+
+    /**
+     * Returns the time of the latest login of the given user.
+     *
+     * @param realmId  the realm of the user
+     * @param username the username of the user
+     * @return the login time in epoch milliseconds, or null if no login is recorded
+     */
+    public Long getLastLogin(String realmId, String username) {
+        RealmLogins logins = realms.computeIfAbsent(realmId, k -> new RealmLogins());
+        sync(realmId, logins);
+        return logins.lastLogins.get(username);
+    }
+
+    /**
+     * Drops the indexed logins of the given realm.
+     *
+     * @param realmId the realm to drop
+     */
+    public void invalidate(String realmId) {
+        realms.remove(realmId);
+    }
+
+    private void sync(String realmId, RealmLogins logins) {
+        if (System.currentTimeMillis() - logins.lastSync < syncIntervalMillis) {
+            return;
+        }
+
+        synchronized (logins) {
+            long now = System.currentTimeMillis();
+            if (now - logins.lastSync < syncIntervalMillis) {
+                return;
+            }
+
+            try {
+                ingest(realmId, logins);
+            } catch (Exception ex) {
+                LOGGER.warn("Error occurred while indexing login events of realm " + realmId + ", reason: " + ex.getMessage(), ex);
+            }
+            logins.lastSync = now;
+        }
+    }
+
+    private void ingest(String realmId, RealmLogins logins) {
+        RealmResource realmResource = keycloakAdminClient.getAdminClient().realm(realmId);
+
+        // Events are filtered by date only, so the previous day is included to be independent of the server time zone.
+        // The first ingestion is bounded by the backfill window instead of paging through the whole event history.
+        String dateFrom = logins.cursor > 0
+                ? Instant.ofEpochMilli(logins.cursor).atZone(ZoneOffset.UTC).toLocalDate().minusDays(1).toString()
+                : LocalDate.now(ZoneOffset.UTC).minusDays(backfillDays).toString();
+
+        long newest = logins.cursor;
+        int first = 0;
+        int ingested = 0;
+
+        while (true) {
+            List<EventRepresentation> events = realmResource.getEvents(LOGIN_EVENT_TYPES, null, null, dateFrom,
+                    null, null, first, pageSize);
+            if (events == null || events.isEmpty()) {
+                break;
+            }
+
+            boolean reachedCursor = false;
+            for (EventRepresentation event : events) {
+                // Events are returned newest first, so anything older than the cursor has already been indexed
+                if (event.getTime() < logins.cursor) {
+                    reachedCursor = true;
+                    break;
+                }
+
+                String username = event.getDetails() != null ? event.getDetails().get(USERNAME_DETAIL) : null;
+                if (username != null) {
+                    logins.lastLogins.merge(username, event.getTime(), Math::max);
+                    ingested++;
+                }
+                newest = Math.max(newest, event.getTime());
+            }
+
+            if (reachedCursor || events.size() < pageSize) {
+                break;
+            }
+            first += events.size();
+        }
+
+        logins.cursor = newest;
+        LOGGER.debug("Indexed " + ingested + " login events of realm " + realmId);
+    }
+
+    private static class RealmLogins {
+
+        private final Map<String, Long> lastLogins = new ConcurrentHashMap<>();
+        private volatile long cursor;
+        private volatile long lastSync;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+/**
+ * Classes of Keycloak calls, each isolated by its own bulkhead and circuit breaker.
+ */
+public enum KeycloakOperation {
+
+    TOKEN("token"),
+    USERINFO("userinfo"),
+    ADMIN_READ("admin-read"),
+    ADMIN_WRITE("admin-write");
+
+    private final String key;
+
+    KeycloakOperation(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Returns the name of the operation class used in configuration keys and metric tags.
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.NotFoundException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the clients and role representations of each realm, so role assignments resolve clients and roles without
+ * a call per role. Entries are loaded lazily, expire after the TTL and are dropped when the roles of a realm change.
+ * Cached representations are shared and must not be modified by callers.
+ */
+@Component
+public class KeycloakRealmMetadataCache {
+
+    private final boolean enabled;
+    private final Cache<String, RealmMetadata> realms;
+
+    public KeycloakRealmMetadataCache(@Value("${iam.server.realm-metadata-cache.enabled:true}") boolean enabled,
+                                      @Value("${iam.server.realm-metadata-cache.size:1000}") long size,
+                                      @Value("${iam.server.realm-metadata-cache.ttl:300}") long ttl) {
+        this.enabled = enabled;
+        this.realms = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(Duration.ofSeconds(ttl))
+                .build();
+    }
+
+    /**
+     * Returns the client with the given client id.
+     *
+     * @throws NotFoundException if the realm has no such client
+     */
+    public ClientRepresentation getClient(Keycloak client, String realmId, String clientId) {
+        if (!enabled) {
+            return findClient(client, realmId, clientId);
+        }
+        return getMetadata(realmId).clients.computeIfAbsent(clientId, k -> findClient(client, realmId, clientId));
+    }
+
+    /**
+     * Returns the realm role with the given name.
+     *
+     * @throws NotFoundException if the realm has no such role
+     */
+    public RoleRepresentation getRealmRole(Keycloak client, String realmId, String roleName) {
+        if (!enabled) {
+            return client.realm(realmId).roles().get(roleName).toRepresentation();
+        }
+        return getMetadata(realmId).realmRoles.computeIfAbsent(roleName,
+                k -> client.realm(realmId).roles().get(roleName).toRepresentation());
+    }
+
+    /**
+     * Returns the role with the given name of the client with the given internal id.
+     *
+     * @throws NotFoundException if the client has no such role
+     */
+    public RoleRepresentation getClientRole(Keycloak client, String realmId, String clientUUID, String roleName) {
+        if (!enabled) {
+            return client.realm(realmId).clients().get(clientUUID).roles().get(roleName).toRepresentation();
+        }
+        return getMetadata(realmId).clientRoles
+                .computeIfAbsent(clientUUID, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(roleName, k -> client.realm(realmId).clients().get(clientUUID).roles().get(roleName).toRepresentation());
+    }
+
+    /**
+     * Drops the cached metadata of the given realm.
+     */
+    public void invalidate(String realmId) {
+        realms.invalidate(realmId);
+    }
+
+    private RealmMetadata getMetadata(String realmId) {
+        return realms.get(realmId, k -> new RealmMetadata());
+    }
+
+    private ClientRepresentation findClient(Keycloak client, String realmId, String clientId) {
+        List<ClientRepresentation> clients = client.realm(realmId).clients().findByClientId(clientId);
+        if (clients == null || clients.isEmpty()) {
+            throw new NotFoundException("Client " + clientId + " not found in realm " + realmId);
+        }
+        return clients.get(0);
+    }
+
+    private static class RealmMetadata {
+
+        private final Map<String, ClientRepresentation> clients = new ConcurrentHashMap<>();
+        private final Map<String, RoleRepresentation> realmRoles = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, RoleRepresentation>> clientRoles = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import com.veda.central.service.exceptions.KeycloakUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.ws.rs.ServerErrorException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Isolates Keycloak calls with a bulkhead and a circuit breaker per {@link KeycloakOperation}.
+ * A bulkhead bounds the calls in flight, and callers wait at most the configured time for a slot, so a slow Keycloak
+ * cannot hold every request thread. A circuit breaker opens when the failure rate of the recent calls crosses the
+ * threshold, then fails calls fast with a {@link KeycloakUnavailableException} until a few trial calls succeed.
+ * Only upstream failures count: timeouts, connection errors and 5xx responses, not rejected credentials or tokens.
+ */
+@Component
+public class KeycloakResilience {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakResilience.class);
+
+    private static final String REJECTED_METRIC = "veda.keycloak.calls.rejected";
+    private static final String CIRCUIT_STATE_METRIC = "veda.keycloak.circuit.state";
+
+    /**
+     * A call to Keycloak that may throw a checked exception.
+     */
+    @FunctionalInterface
+    public interface KeycloakCall<T, E extends Exception> {
+        T call() throws E;
+    }
+
+    private final boolean enabled;
+    private final long maxWaitMillis;
+    private final Map<KeycloakOperation, Semaphore> bulkheads = new EnumMap<>(KeycloakOperation.class);
+    private final Map<KeycloakOperation, CircuitBreaker> circuitBreakers = new EnumMap<>(KeycloakOperation.class);
+    private final Map<KeycloakOperation, Counter> bulkheadRejections = new EnumMap<>(KeycloakOperation.class);
+    private final Map<KeycloakOperation, Counter> circuitRejections = new EnumMap<>(KeycloakOperation.class);
+
+    public KeycloakResilience(MeterRegistry meterRegistry,
+                              @Value("${iam.server.resilience.enabled:true}") boolean enabled,
+                              @Value("${iam.server.resilience.bulkhead.token:100}") int tokenConcurrency,
+                              @Value("${iam.server.resilience.bulkhead.userinfo:100}") int userInfoConcurrency,
+                              @Value("${iam.server.resilience.bulkhead.admin-read:50}") int adminReadConcurrency,
+                              @Value("${iam.server.resilience.bulkhead.admin-write:20}") int adminWriteConcurrency,
+                              @Value("${iam.server.resilience.bulkhead.max-wait:500}") long maxWaitMillis,
+                              @Value("${iam.server.resilience.circuit-breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                              @Value("${iam.server.resilience.circuit-breaker.window-size:50}") int windowSize,
+                              @Value("${iam.server.resilience.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                              @Value("${iam.server.resilience.circuit-breaker.open-duration:30}") long openDuration,
+                              @Value("${iam.server.resilience.circuit-breaker.half-open-calls:5}") int halfOpenCalls) {
+        this.enabled = enabled;
+        this.maxWaitMillis = maxWaitMillis;
+        bulkheads.put(KeycloakOperation.TOKEN, new Semaphore(tokenConcurrency));
+        bulkheads.put(KeycloakOperation.USERINFO, new Semaphore(userInfoConcurrency));
+        bulkheads.put(KeycloakOperation.ADMIN_READ, new Semaphore(adminReadConcurrency));
+        bulkheads.put(KeycloakOperation.ADMIN_WRITE, new Semaphore(adminWriteConcurrency));
+
+        for (KeycloakOperation operation : KeycloakOperation.values()) {
+            CircuitBreaker circuitBreaker = new CircuitBreaker(operation, failureRateThreshold, windowSize, minimumCalls,
+                    TimeUnit.SECONDS.toMillis(openDuration), halfOpenCalls);
+            circuitBreakers.put(operation, circuitBreaker);
+
+            Gauge.builder(CIRCUIT_STATE_METRIC, circuitBreaker, cb -> cb.getState().ordinal())
+                    .description("Circuit breaker state, 0 closed, 1 open, 2 half open")
+                    .tag("operation", operation.getKey())
+                    .register(meterRegistry);
+            bulkheadRejections.put(operation, Counter.builder(REJECTED_METRIC)
+                    .tag("operation", operation.getKey())
+                    .tag("reason", "bulkhead-full")
+                    .register(meterRegistry));
+            circuitRejections.put(operation, Counter.builder(REJECTED_METRIC)
+                    .tag("operation", operation.getKey())
+                    .tag("reason", "circuit-open")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Runs the call within the bulkhead and circuit breaker of the operation.
+     *
+     * @param operation     the class of the call
+     * @param call          the call to Keycloak
+     * @param failedResult  tells whether a returned result is an upstream failure, such as a 5xx response
+     * @return the result of the call
+     * @throws KeycloakUnavailableException if the circuit is open or no bulkhead slot frees up in time
+     */
+    public <T, E extends Exception> T call(KeycloakOperation operation, KeycloakCall<T, E> call, Predicate<T> failedResult) throws E {
+        if (!enabled) {
+            return call.call();
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakers.get(operation);
+        if (!circuitBreaker.tryAcquire()) {
+            circuitRejections.get(operation).increment();
+            throw new KeycloakUnavailableException("Keycloak " + operation.getKey() + " calls are failing fast, the circuit is open");
+        }
+
+        Semaphore bulkhead = bulkheads.get(operation);
+        try {
+            if (!bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                circuitBreaker.release();
+                bulkheadRejections.get(operation).increment();
+                throw new KeycloakUnavailableException("Too many concurrent Keycloak " + operation.getKey() + " calls");
+            }
+        } catch (InterruptedException ex) {
+            circuitBreaker.release();
+            Thread.currentThread().interrupt();
+            throw new KeycloakUnavailableException("Interrupted while waiting for a Keycloak " + operation.getKey() + " slot", ex);
+        }
+
+        try {
+            T result = call.call();
+            circuitBreaker.onResult(failedResult != null && failedResult.test(result));
+            return result;
+        } catch (Exception ex) {
+            circuitBreaker.onResult(isUpstreamFailure(ex));
+            throw ex;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Runs the call within the bulkhead and circuit breaker of the operation, see {@link #call(KeycloakOperation, KeycloakCall, Predicate)}.
+     */
+    public <T, E extends Exception> T call(KeycloakOperation operation, KeycloakCall<T, E> call) throws E {
+        return call(operation, call, null);
+    }
+
+    /**
+     * Tells whether the error means that Keycloak could not serve the call, as opposed to having rejected it.
+     */
+    public static boolean isUnavailable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof KeycloakUnavailableException) {
+                return true;
+            }
+        }
+        return isUpstreamFailure(error);
+    }
+
+    private static boolean isUpstreamFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SocketTimeoutException || cause instanceof ConnectException
+                    || cause instanceof ConnectTimeoutException || cause instanceof ConnectionPoolTimeoutException
+                    || cause instanceof NoHttpResponseException || cause instanceof ServerErrorException) {
+                return true;
+            }
+            if (cause instanceof HttpResponseException && ((HttpResponseException) cause).getStatusCode() >= 500) {
+                return true;
+            }
+            if (cause instanceof org.keycloak.authorization.client.util.HttpResponseException
+                    && ((org.keycloak.authorization.client.util.HttpResponseException) cause).getStatusCode() >= 500) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Count based circuit breaker over a ring of the most recent call outcomes.
+     */
+    private static class CircuitBreaker {
+
+        enum State {CLOSED, OPEN, HALF_OPEN}
+
+        private final KeycloakOperation operation;
+        private final int failureRateThreshold;
+        private final int minimumCalls;
+        private final long openDurationMillis;
+        private final int halfOpenCalls;
+        private final boolean[] outcomes;
+
+        private State state = State.CLOSED;
+        private int position;
+        private int recorded;
+        private int failures;
+        private long openedAt;
+        private int halfOpenPermits;
+        private int halfOpenSuccesses;
+
+        CircuitBreaker(KeycloakOperation operation, int failureRateThreshold, int windowSize, int minimumCalls,
+                       long openDurationMillis, int halfOpenCalls) {
+            this.operation = operation;
+            this.failureRateThreshold = failureRateThreshold;
+            this.minimumCalls = Math.min(minimumCalls, windowSize);
+            this.openDurationMillis = openDurationMillis;
+            this.halfOpenCalls = halfOpenCalls;
+            this.outcomes = new boolean[windowSize];
+        }
+
+        synchronized State getState() {
+            return state;
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                halfOpenPermits = halfOpenCalls;
+                halfOpenSuccesses = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        }
+
+        /**
+         * Returns a permit that was acquired but not used for a call.
+         */
+        synchronized void release() {
+            if (state == State.HALF_OPEN) {
+                halfOpenPermits++;
+            }
+        }
+
+        synchronized void onResult(boolean failed) {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (failed) {
+                        open();
+                    } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                        close();
+                    }
+                }
+                case CLOSED -> {
+                    record(failed);
+                    if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                        open();
+                    }
+                }
+                default -> {
+                    // calls started before the circuit opened do not change its state
+                }
+            }
+        }
+
+        private void record(boolean failed) {
+            if (recorded == outcomes.length) {
+                if (outcomes[position]) {
+                    failures--;
+                }
+            } else {
+                recorded++;
+            }
+            outcomes[position] = failed;
+            if (failed) {
+                failures++;
+            }
+            position = (position + 1) % outcomes.length;
+        }
+
+        private void open() {
+            LOGGER.warn("Opening the circuit of Keycloak " + operation.getKey() + " calls");
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+
+        private void close() {
+            LOGGER.info("Closing the circuit of Keycloak " + operation.getKey() + " calls");
+            state = State.CLOSED;
+            position = 0;
+            recorded = 0;
+            failures = 0;
+        }
+    }
+}
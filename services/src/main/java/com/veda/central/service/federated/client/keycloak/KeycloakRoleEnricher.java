@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PreDestroy;
+import org.keycloak.admin.client.Keycloak;
+import org.keycloak.admin.client.resource.RealmResource;
+import org.keycloak.admin.client.resource.RoleResource;
+import org.keycloak.representations.idm.ClientRepresentation;
+import org.keycloak.representations.idm.MappingsRepresentation;
+import org.keycloak.representations.idm.RoleRepresentation;
+import org.keycloak.representations.idm.UserRepresentation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Populates the realm and client roles of Keycloak users returned by searches.
+ * In the per-user mode, the role mappings of each user are fetched concurrently with a bounded parallelism.
+ * In the role-index mode, roles are resolved from a cached per-realm index of role members, so a page of users is
+ * enriched without a call per user. The index is rebuilt after the TTL or when the role mappings of a realm change.
+ */
+@Component
+public class KeycloakRoleEnricher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakRoleEnricher.class);
+
+    private static final String ROLE_INDEX_MODE = "role-index";
+    private static final int MEMBERS_PAGE_SIZE = 500;
+
+    private final KeycloakAdminClient keycloakAdminClient;
+    private final boolean roleIndexEnabled;
+    private final ExecutorService executor;
+    private final LoadingCache<String, RoleIndex> roleIndexes;
+
+    public KeycloakRoleEnricher(KeycloakAdminClient keycloakAdminClient,
+                                @Value("${iam.server.role-enrichment.mode:per-user}") String mode,
+                                @Value("${iam.server.role-enrichment.parallelism:16}") int parallelism,
+                                @Value("${iam.server.role-enrichment.index-ttl:60}") long indexTTL) {
+        this.keycloakAdminClient = keycloakAdminClient;
+        this.roleIndexEnabled = ROLE_INDEX_MODE.equalsIgnoreCase(mode);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "keycloak-role-enricher-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.roleIndexes = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(indexTTL))
+                .build(this::buildRoleIndex);
+    }
+
+    /**
+     * Sets the realm and client roles of the given users.
+     *
+     * @param client  the client used to fetch the role mappings in the per-user mode
+     * @param realmId the realm of the users
+     * @param users   the users to enrich
+     */
+    public void enrich(Keycloak client, String realmId, List<UserRepresentation> users) {
+        if (users == null || users.isEmpty()) {
+            return;
+        }
+
+        if (roleIndexEnabled) {
+            RoleIndex index = roleIndexes.get(realmId);
+            users.forEach(index::apply);
+            return;
+        }
+
+        if (users.size() == 1) {
+            applyMappings(users.get(0), client.realm(realmId).users().get(users.get(0).getId()).roles().getAll());
+            return;
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (UserRepresentation user : users) {
+            futures.add(CompletableFuture.runAsync(() ->
+                    applyMappings(user, client.realm(realmId).users().get(user.getId()).roles().getAll()), executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+        }
+    }
+
+    /**
+     * Drops the cached role index of the realm, called after the role mappings of the realm change.
+     */
+    public void invalidate(String realmId) {
+        roleIndexes.invalidate(realmId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void applyMappings(UserRepresentation user, MappingsRepresentation representation) {
+        if (representation != null && representation.getRealmMappings() != null) {
+            List<String> realmRoles = new ArrayList<>();
+            representation.getRealmMappings().forEach(role -> realmRoles.add(role.getName()));
+            user.setRealmRoles(realmRoles);
+        }
+        if (representation != null && representation.getClientMappings() != null) {
+            Map<String, List<String>> clientRoles = new HashMap<>();
+            representation.getClientMappings().forEach((clientId, mappings) -> {
+                if (mappings.getMappings() != null) {
+                    List<String> roleList = new ArrayList<>();
+                    mappings.getMappings().forEach(role -> roleList.add(role.getName()));
+                    clientRoles.put(clientId, roleList);
+                }
+            });
+            user.setClientRoles(clientRoles);
+        }
+    }
+
+    private RoleIndex buildRoleIndex(String realmId) {
+        long start = System.currentTimeMillis();
+        RealmResource realm = keycloakAdminClient.getAdminClient().realm(realmId);
+        RoleIndex index = new RoleIndex();
+
+        for (RoleRepresentation role : realm.roles().list()) {
+            for (String userId : getMemberIds(realm.roles().get(role.getName()))) {
+                index.realmRoles.computeIfAbsent(userId, id -> new ArrayList<>()).add(role.getName());
+            }
+        }
+
+        for (ClientRepresentation clientRepresentation : realm.clients().findAll()) {
+            for (RoleRepresentation role : realm.clients().get(clientRepresentation.getId()).roles().list()) {
+                RoleResource roleResource = realm.clients().get(clientRepresentation.getId()).roles().get(role.getName());
+                for (String userId : getMemberIds(roleResource)) {
+                    index.clientRoles.computeIfAbsent(userId, id -> new HashMap<>())
+                            .computeIfAbsent(clientRepresentation.getClientId(), id -> new ArrayList<>())
+                            .add(role.getName());
+                }
+            }
+        }
+
+        LOGGER.debug("Role index of realm {} built for {} users in {} ms", realmId, index.realmRoles.size(),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private List<String> getMemberIds(RoleResource roleResource) {
+        List<String> memberIds = new ArrayList<>();
+        int first = 0;
+        Set<UserRepresentation> page;
+        do {
+            page = roleResource.getRoleUserMembers(first, MEMBERS_PAGE_SIZE);
+            page.forEach(user -> memberIds.add(user.getId()));
+            first += MEMBERS_PAGE_SIZE;
+        } while (page.size() == MEMBERS_PAGE_SIZE);
+        return memberIds;
+    }
+
+    private static final class RoleIndex {
+
+        // user id -> directly mapped realm roles
+        private final Map<String, List<String>> realmRoles = new HashMap<>();
+        // user id -> client id -> directly mapped client roles
+        private final Map<String, Map<String, List<String>>> clientRoles = new HashMap<>();
+
+        private void apply(UserRepresentation user) {
+            List<String> userRealmRoles = realmRoles.get(user.getId());
+            if (userRealmRoles != null) {
+                user.setRealmRoles(new ArrayList<>(userRealmRoles));
+            }
+            Map<String, List<String>> userClientRoles = clientRoles.get(user.getId());
+            if (userClientRoles != null) {
+                Map<String, List<String>> copy = new HashMap<>();
+                userClientRoles.forEach((clientId, roles) -> copy.put(clientId, new ArrayList<>(roles)));
+                user.setClientRoles(copy);
+            }
+        }
+    }
+}
@@ -19,6 +19,9 @@
 
 package com.veda.central.service.federated.client.keycloak;
 
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.ResteasyClientBuilder;
+import org.jboss.resteasy.client.jaxrs.engines.ClientHttpEngineBuilder43;
 import org.keycloak.admin.client.Keycloak;
 import org.keycloak.admin.client.KeycloakBuilder;
 import org.slf4j.Logger;
@@ -41,27 +44,37 @@ public class KeycloakUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakUtils.class);
     private static final String SSL_PROTOCOL = "TLS";
 
-    public static Keycloak getClient(String serverURL, String realm, String accessToken) {
+    public static Keycloak getClient(String serverURL, String realm, String accessToken, Client restClient) {
         return KeycloakBuilder.builder()
                 .serverUrl(serverURL)
                 .realm(realm)
                 .authorization(accessToken)
-                .resteasyClient(getRestClient())
+                .resteasyClient(restClient)
                 .build();
     }
 
-    public static Keycloak getClient(String serverURL, String realm, String loginUsername, String password, String clientId) {
+    public static Keycloak getClient(String serverURL, String realm, String loginUsername, String password, String clientId,
+                                     Client restClient) {
         return KeycloakBuilder.builder()
                 .serverUrl(serverURL)
                 .realm(realm)
                 .username(loginUsername)
                 .password(password)
                 .clientId(clientId)
-                .resteasyClient(getRestClient())
+                .resteasyClient(restClient)
                 .build();
     }
 
-    private static Client getRestClient() {
+    /**
+     * Builds a REST client backed by a pool of keep-alive connections, meant to be shared by all Keycloak clients.
+     *
+     * @param maxConnections         the maximum number of pooled connections
+     * @param maxConnectionsPerRoute the maximum number of pooled connections per route
+     * @param connectionTTL          the time to live of a pooled connection in seconds
+     * @param resilience             the bulkheads and circuit breakers every request goes through
+     */
+    public static Client getPooledRestClient(int maxConnections, int maxConnectionsPerRoute, long connectionTTL,
+                                             KeycloakResilience resilience) {
         try {
             TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
             tmf.init((KeyStore) null);
@@ -69,11 +82,16 @@ public class KeycloakUtils {
             SSLContext sslContext = SSLContext.getInstance(SSL_PROTOCOL);
             sslContext.init(null, tmf.getTrustManagers(), null);
 
-            return ClientBuilder.newBuilder()
+            ResteasyClientBuilder builder = (ResteasyClientBuilder) ClientBuilder.newBuilder();
+            builder.connectionPoolSize(maxConnections)
+                    .maxPooledPerRoute(maxConnectionsPerRoute)
+                    .connectionTTL(connectionTTL, TimeUnit.SECONDS)
                     .sslContext(sslContext)
                     .connectTimeout(100, TimeUnit.SECONDS)
-                    .readTimeout(10, TimeUnit.SECONDS)
-                    .build();
+                    .readTimeout(10, TimeUnit.SECONDS);
+
+            ClientHttpEngine engine = new ClientHttpEngineBuilder43().resteasyClientBuilder(builder).build();
+            return builder.httpEngine(new ResilientHttpEngine(engine, resilience)).build();
         } catch (Exception e) {
             LOGGER.error("Error configuring the rest client", e);
             throw new RuntimeException("Failed to configure the REST client", e);
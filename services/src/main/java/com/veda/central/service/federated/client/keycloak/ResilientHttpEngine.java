@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak;
+
+import org.jboss.resteasy.client.jaxrs.ClientHttpEngine;
+import org.jboss.resteasy.client.jaxrs.internal.ClientInvocation;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.core.Response;
+
+/**
+ * Routes every request of the Keycloak admin REST client through {@link KeycloakResilience}, classifying token
+ * requests, reads and writes so that each gets its own bulkhead and circuit breaker.
+ */
+class ResilientHttpEngine implements ClientHttpEngine {
+
+    private static final String TOKEN_PATH = "/protocol/openid-connect/token";
+
+    private final ClientHttpEngine delegate;
+    private final KeycloakResilience resilience;
+
+    ResilientHttpEngine(ClientHttpEngine delegate, KeycloakResilience resilience) {
+        this.delegate = delegate;
+        this.resilience = resilience;
+    }
+
+    @Override
+    public SSLContext getSslContext() {
+        return delegate.getSslContext();
+    }
+
+    @Override
+    public HostnameVerifier getHostnameVerifier() {
+        return delegate.getHostnameVerifier();
+    }
+
+    @Override
+    public Response invoke(Invocation request) {
+        return resilience.call(getOperation(request), () -> delegate.invoke(request), response -> response.getStatus() >= 500);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private static KeycloakOperation getOperation(Invocation request) {
+        if (!(request instanceof ClientInvocation invocation)) {
+            return KeycloakOperation.ADMIN_WRITE;
+        }
+        if (invocation.getUri() != null && invocation.getUri().getPath().endsWith(TOKEN_PATH)) {
+            return KeycloakOperation.TOKEN;
+        }
+        return HttpMethod.GET.equals(invocation.getMethod()) ? KeycloakOperation.ADMIN_READ : KeycloakOperation.ADMIN_WRITE;
+    }
+}
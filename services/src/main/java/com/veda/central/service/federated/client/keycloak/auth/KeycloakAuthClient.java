@@ -19,21 +19,23 @@
 
 package com.veda.central.service.federated.client.keycloak.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veda.central.service.federated.client.keycloak.KeycloakHttpClient;
+import com.veda.central.service.federated.client.keycloak.KeycloakOperation;
+import com.veda.central.service.federated.client.keycloak.KeycloakResilience;
 import com.veda.central.service.federated.client.keycloak.KeycloakUtils;
+import com.veda.central.service.util.TokenDigests;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Consts;
 import org.apache.http.HttpHeaders;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
-import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
-import org.apache.http.ssl.SSLContextBuilder;
 import org.apache.http.util.EntityUtils;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -47,15 +49,12 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
@@ -73,6 +72,21 @@ public class KeycloakAuthClient {
     @Value("${iam.server.url:https://auth.veda.usecustos.org/auth/}")
     private String idpServerURL;
 
+    private final KeycloakHttpClient keycloakHttpClient;
+    private final KeycloakResilience resilience;
+    private final Cache<String, AuthzClient> authzClients;
+
+    public KeycloakAuthClient(KeycloakHttpClient keycloakHttpClient, KeycloakResilience resilience,
+                              @Value("${iam.server.http-client.authz-client-cache.size:1000}") long authzClientCacheSize,
+                              @Value("${iam.server.http-client.authz-client-cache.ttl:600}") long authzClientCacheTTL) {
+        this.keycloakHttpClient = keycloakHttpClient;
+        this.resilience = resilience;
+        this.authzClients = Caffeine.newBuilder()
+                .maximumSize(authzClientCacheSize)
+                .expireAfterAccess(Duration.ofSeconds(authzClientCacheTTL))
+                .build();
+    }
+
     @EventListener(ApplicationReadyEvent.class)
     public void initializeSecurity() throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
         try {
@@ -87,19 +101,8 @@ public class KeycloakAuthClient {
     public String authenticate(String clientId, String clientSecret, String realmId, String username, String password) {
 
         try {
-            Map<String, Object> clientCredentials = new HashMap<>();
-            clientCredentials.put("secret", clientSecret);
-
-            SSLContextBuilder builder = new SSLContextBuilder();
-            builder.loadTrustMaterial(null, new TrustSelfSignedStrategy());
-
-            SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(builder.build());
-            CloseableHttpClient httpclient = HttpClients.custom().setSSLSocketFactory(sslsf).build();
-
-            Configuration configuration = new Configuration(idpServerURL, realmId, clientId, clientCredentials, httpclient);
-            AuthzClient keycloakClient = AuthzClient.create(configuration);
-
-            AccessTokenResponse accessToken = keycloakClient.obtainAccessToken(username, password);
+            AccessTokenResponse accessToken = resilience.call(KeycloakOperation.TOKEN,
+                    () -> getAuthzClient(clientId, clientSecret, realmId).obtainAccessToken(username, password));
 
             return accessToken != null ? accessToken.getToken() : null;
 
@@ -133,11 +136,21 @@ public class KeycloakAuthClient {
     }
 
     public String getUserManagementServiceAccountAccessToken(String clientId, String clientSecret, String realmId) {
+        return getUserManagementServiceAccountTokenResponse(clientId, clientSecret, realmId).getString("access_token");
+    }
+
+    /**
+     * Runs a client credentials grant and returns the full token response, including the expires_in of the token.
+     */
+    public JSONObject getUserManagementServiceAccountTokenResponse(String clientId, String clientSecret, String realmId) {
         try {
             String tokenURL = getTokenEndpoint(realmId);
             LOGGER.info("token url:" + tokenURL);
             JSONObject clientCredentials = getClientCredentials(tokenURL, clientId, clientSecret);
-            return clientCredentials.getString("access_token");
+            if (!clientCredentials.has("access_token")) {
+                throw new RuntimeException("No access token in the token response: " + clientCredentials.optString("error"));
+            }
+            return clientCredentials;
         } catch (Exception e) {
             LOGGER.error("Error occurred while retrieving service account access token", e);
             throw new RuntimeException("Error occurred while retrieving service account access token", e);
@@ -171,8 +184,7 @@ public class KeycloakAuthClient {
             UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
             httpPost.setEntity(entity);
 
-            try (CloseableHttpClient httpClient = HttpClients.createSystem();
-                 CloseableHttpResponse response = httpClient.execute(httpPost)) {
+            try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
                 return new JSONObject(EntityUtils.toString(response.getEntity()));
 
             } catch (IOException | JSONException e) {
@@ -297,24 +309,34 @@ public class KeycloakAuthClient {
         return idpServerURL + "realms/" + realm + "/.well-known/openid-configuration";
     }
 
+    /**
+     * AuthzClients fetch the server configuration when created, so one is kept per realm and client credentials.
+     */
+    private AuthzClient getAuthzClient(String clientId, String clientSecret, String realmId) {
+        String key = realmId + ":" + clientId + ":" + TokenDigests.fingerprint(clientSecret);
+        return authzClients.get(key, k -> {
+            Map<String, Object> clientCredentials = new HashMap<>();
+            clientCredentials.put("secret", clientSecret);
+            Configuration configuration = new Configuration(idpServerURL, realmId, clientId, clientCredentials,
+                    keycloakHttpClient.getHttpClient());
+            return AuthzClient.create(configuration);
+        });
+    }
+
     private String getFromUrl(String urlToRead, String token) throws Exception {
-        StringBuilder result = new StringBuilder();
-        URL url = new URL(urlToRead);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setDoInput(true);
+        HttpGet httpGet = new HttpGet(urlToRead);
         if (token != null) {
-            String bearerAuth = "Bearer " + token;
-            conn.setRequestProperty("Authorization", bearerAuth);
+            httpGet.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
         }
-        try (BufferedReader rd = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            String line;
-            while ((line = rd.readLine()) != null) {
-                result.append(line);
+
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(token != null ? KeycloakOperation.USERINFO : KeycloakOperation.TOKEN, httpGet)) {
+            String responseBody = EntityUtils.toString(response.getEntity());
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode >= 400) {
+                throw new HttpResponseException(statusCode, "Server returned HTTP response code: " + statusCode + " for URL: " + urlToRead);
             }
+            return responseBody;
         }
-
-        return result.toString();
     }
 
 
@@ -327,8 +349,7 @@ public class KeycloakAuthClient {
         UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
         httpPost.setEntity(entity);
 
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
             String responseBody = EntityUtils.toString(response.getEntity());
             return new JSONObject(responseBody);
 
@@ -358,8 +379,7 @@ public class KeycloakAuthClient {
         UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
         httpPost.setEntity(entity);
 
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
             String responseBody = EntityUtils.toString(response.getEntity());
             return new JSONObject(responseBody);
 
@@ -380,8 +400,7 @@ public class KeycloakAuthClient {
         UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
         httpPost.setEntity(entity);
 
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
             if (response.getStatusLine().getStatusCode() != 204) {
                 throw new IllegalStateException("Failed to end session properly: " + EntityUtils.toString(response.getEntity()));
             }
@@ -396,8 +415,7 @@ public class KeycloakAuthClient {
         String encoded = Base64.getEncoder().encodeToString((clientId + ":" + clientSecret).getBytes(StandardCharsets.UTF_8));
         httpPost.setHeader(HttpHeaders.AUTHORIZATION, "Basic " + encoded);
 
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
 
             String responseBody = EntityUtils.toString(response.getEntity());
             return new JSONObject(responseBody);
@@ -423,8 +441,7 @@ public class KeycloakAuthClient {
         UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
         httpPost.setEntity(entity);
 
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
 
             String responseBody = EntityUtils.toString(response.getEntity());
             return new JSONObject(responseBody);
@@ -448,8 +465,7 @@ public class KeycloakAuthClient {
         formParams.add(new BasicNameValuePair("scope", "openid"));
         UrlEncodedFormEntity entity = new UrlEncodedFormEntity(formParams, Consts.UTF_8);
         httpPost.setEntity(entity);
-        try (CloseableHttpClient httpClient = HttpClients.createSystem();
-             CloseableHttpResponse response = httpClient.execute(httpPost)) {
+        try (CloseableHttpResponse response = keycloakHttpClient.execute(KeycloakOperation.TOKEN, httpPost)) {
 
             String responseBody = EntityUtils.toString(response.getEntity());
             return new JSONObject(responseBody);
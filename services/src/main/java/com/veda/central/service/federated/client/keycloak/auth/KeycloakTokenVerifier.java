@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak.auth;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.proc.BadJOSEException;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.proc.ConfigurableJWTProcessor;
+import com.nimbusds.jwt.proc.DefaultJWTClaimsVerifier;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URL;
+import java.text.ParseException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verifies Keycloak issued access tokens locally against the JWKS of the realm, instead of calling the
+ * userinfo endpoint. The JWKS of each realm is cached, refreshed ahead of expiry in the background, and
+ * re-fetched (rate limited) when a token is signed with a key ID that is not in the cached set.
+ */
+@Component
+public class KeycloakTokenVerifier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(KeycloakTokenVerifier.class);
+
+    private static final Set<String> REQUIRED_CLAIMS = Set.of("exp", "azp", "preferred_username");
+
+    private final KeycloakAuthClient keycloakAuthClient;
+
+    private final Map<String, ConfigurableJWTProcessor<SecurityContext>> processors = new ConcurrentHashMap<>();
+
+    @Value("${veda-auth.identity.auth.jwt.jwks-cache-ttl:300}")
+    private long jwksCacheTtl;
+
+    @Value("${veda-auth.identity.auth.jwt.jwks-refresh-ahead:30}")
+    private long jwksRefreshAhead;
+
+    @Value("${veda-auth.identity.auth.jwt.jwks-min-refresh-interval:30}")
+    private long jwksMinRefreshInterval;
+
+    public KeycloakTokenVerifier(KeycloakAuthClient keycloakAuthClient) {
+        this.keycloakAuthClient = keycloakAuthClient;
+    }
+
+    /**
+     * Validates the signature, expiry, issuer and authorized party of the token and checks that it was issued to the given user.
+     *
+     * @param username         expected preferred_username of the token
+     * @param realmId          realm that issued the token
+     * @param expectedClientId expected azp of the token, the Keycloak client of the tenant
+     * @param accessToken      Keycloak access token
+     * @return true if the token is valid for the user, false otherwise
+     * @throws KeySourceException if the realm configuration or its JWKS could not be retrieved
+     */
+    public boolean isUserAuthenticated(String username, String realmId, String expectedClientId, String accessToken) throws KeySourceException {
+        if (accessToken == null || username == null) {
+            return false;
+        }
+        if (expectedClientId == null || expectedClientId.isEmpty()) {
+            LOGGER.debug("Rejecting the token of user: {} as the client of tenant: {} is unknown", username, realmId);
+            return false;
+        }
+
+        try {
+            JWTClaimsSet claims = getProcessor(realmId).process(accessToken, null);
+
+            if (!username.equals(claims.getStringClaim("preferred_username"))) {
+                LOGGER.debug("Subject name and username for the token doesn't match for user: {}", username);
+                return false;
+            }
+            if (!expectedClientId.equals(claims.getStringClaim("azp"))) {
+                LOGGER.debug("Authorized party of the token doesn't match the client: {}", expectedClientId);
+                return false;
+            }
+            return true;
+
+        } catch (KeySourceException e) {
+            throw e;
+        } catch (BadJOSEException | ParseException e) {
+            LOGGER.debug("Token validation failed for user: {} in tenant: {}, {}", username, realmId, e.getMessage());
+            return false;
+        } catch (Exception e) {
+            LOGGER.error("Error occurred while validating the token of user: {} in tenant: {}", username, realmId, e);
+            return false;
+        }
+    }
+
+    private ConfigurableJWTProcessor<SecurityContext> getProcessor(String realmId) throws KeySourceException {
+        ConfigurableJWTProcessor<SecurityContext> processor = processors.get(realmId);
+        if (processor == null) {
+            processor = createProcessor(realmId);
+            ConfigurableJWTProcessor<SecurityContext> existing = processors.putIfAbsent(realmId, processor);
+            if (existing != null) {
+                processor = existing;
+            }
+        }
+        return processor;
+    }
+
+    private ConfigurableJWTProcessor<SecurityContext> createProcessor(String realmId) throws KeySourceException {
+        try {
+            JSONObject configuration = keycloakAuthClient.getOIDCConfiguration(realmId);
+            String issuer = configuration.getString("issuer");
+            URL jwksUri = new URL(configuration.getString("jwks_uri"));
+
+            JWKSource<SecurityContext> keySource = JWKSourceBuilder.create(jwksUri)
+                    .cache(TimeUnit.SECONDS.toMillis(jwksCacheTtl), JWKSourceBuilder.DEFAULT_CACHE_REFRESH_TIMEOUT)
+                    .refreshAheadCache(TimeUnit.SECONDS.toMillis(jwksRefreshAhead), true)
+                    .rateLimited(TimeUnit.SECONDS.toMillis(jwksMinRefreshInterval))
+                    .build();
+
+            Set<JWSAlgorithm> algorithms = new HashSet<>(JWSAlgorithm.Family.RSA);
+            algorithms.addAll(JWSAlgorithm.Family.EC);
+
+            DefaultJWTProcessor<SecurityContext> processor = new DefaultJWTProcessor<>();
+            processor.setJWSKeySelector(new JWSVerificationKeySelector<>(algorithms, keySource));
+            processor.setJWTClaimsSetVerifier(new DefaultJWTClaimsVerifier<>(
+                    new JWTClaimsSet.Builder().issuer(issuer).build(), REQUIRED_CLAIMS));
+            return processor;
+
+        } catch (Exception e) {
+            throw new KeySourceException("Couldn't retrieve the OpenID configuration of tenant: " + realmId, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.federated.client.keycloak.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.veda.central.service.util.TokenDigests;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the service account access tokens obtained through client credentials grants, keyed by the tenant,
+ * the client id and a digest of the client secret. A token is reused until the configured number of seconds before
+ * its expires_in elapses. Concurrent requests for a missing or expired token share a single grant.
+ */
+@Component
+public class ServiceAccountTokenCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ServiceAccountTokenCache.class);
+
+    private final KeycloakAuthClient keycloakAuthClient;
+    private final boolean enabled;
+    private final long expirySkewSeconds;
+    private final Cache<String, ServiceAccountToken> tokens;
+
+    public ServiceAccountTokenCache(KeycloakAuthClient keycloakAuthClient,
+                                    @Value("${veda-auth.identity.auth.sa-token-cache.enabled:true}") boolean enabled,
+                                    @Value("${veda-auth.identity.auth.sa-token-cache.size:1000}") long maxSize,
+                                    @Value("${veda-auth.identity.auth.sa-token-cache.expiry-skew:30}") long expirySkewSeconds) {
+        this.keycloakAuthClient = keycloakAuthClient;
+        this.enabled = enabled;
+        this.expirySkewSeconds = expirySkewSeconds;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, ServiceAccountToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, ServiceAccountToken token, long currentTime) {
+                        return TimeUnit.SECONDS.toNanos(token.getReusableSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, ServiceAccountToken token, long currentTime, long currentDuration) {
+                        return TimeUnit.SECONDS.toNanos(token.getReusableSeconds());
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, ServiceAccountToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public String getAccessToken(String clientId, String clientSecret, long tenantId) {
+        if (!enabled) {
+            return keycloakAuthClient.getUserManagementServiceAccountAccessToken(clientId, clientSecret, String.valueOf(tenantId));
+        }
+        String key = tenantId + ":" + clientId + ":" + TokenDigests.fingerprint(clientSecret);
+        return tokens.get(key, k -> fetch(clientId, clientSecret, tenantId)).getAccessToken();
+    }
+
+    private ServiceAccountToken fetch(String clientId, String clientSecret, long tenantId) {
+        LOGGER.debug("Requesting a service account token for client {} of tenant {}", clientId, tenantId);
+        JSONObject response = keycloakAuthClient.getUserManagementServiceAccountTokenResponse(clientId, clientSecret, String.valueOf(tenantId));
+        long expiresIn = response.optLong("expires_in", 0);
+        return new ServiceAccountToken(response.getString("access_token"), Math.max(0, expiresIn - expirySkewSeconds));
+    }
+
+    private static final class ServiceAccountToken {
+
+        private final String accessToken;
+        private final long reusableSeconds;
+
+        private ServiceAccountToken(String accessToken, long reusableSeconds) {
+            this.accessToken = accessToken;
+            this.reusableSeconds = reusableSeconds;
+        }
+
+        public String getAccessToken() {
+            return accessToken;
+        }
+
+        public long getReusableSeconds() {
+            return reusableSeconds;
+        }
+    }
+}
@@ -20,6 +20,7 @@
 package com.veda.central.service.iam;
 
 import com.veda.central.api.exception.UnauthorizedException;
+import com.veda.central.api.util.ServerTiming;
 import com.veda.central.core.commons.StatusUpdater;
 import com.veda.central.core.constants.Constants;
 import com.veda.central.core.iam.api.AddExternalIDPLinksRequest;
@@ -71,11 +72,12 @@ import com.veda.central.core.iam.api.UserSearchRequest;
 import com.veda.central.core.model.commons.OperationStatus;
 import com.veda.central.core.model.commons.StatusEntity;
 import com.veda.central.service.auth.TokenService;
+import com.veda.central.service.federated.client.keycloak.AsyncKeycloakClient;
 import com.veda.central.service.federated.client.keycloak.KeycloakClient;
 import com.veda.central.service.federated.client.keycloak.KeycloakClientSecret;
 import jakarta.persistence.EntityNotFoundException;
 import org.apache.commons.lang3.StringUtils;
-import org.keycloak.representations.idm.EventRepresentation;
+import org.keycloak.representations.idm.CredentialRepresentation;
 import org.keycloak.representations.idm.FederatedIdentityRepresentation;
 import org.keycloak.representations.idm.ProtocolMapperRepresentation;
 import org.keycloak.representations.idm.UserRepresentation;
@@ -87,10 +89,13 @@ import org.springframework.stereotype.Service;
 
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -107,10 +112,20 @@ public class IamAdminService {
     @Value("${iam.server.url:https://auth.veda.usecustos.org/auth/}")
     private String iamServerURL;
 
-    public IamAdminService(KeycloakClient keycloakClient, StatusUpdater statusUpdater, TokenService tokenService) {
+    @Value("${iam.server.bulk-import.enabled:false}")
+    private boolean bulkImportEnabled;
+
+    @Value("${iam.server.bulk-import.chunk-size:500}")
+    private int bulkImportChunkSize;
+
+    private final AsyncKeycloakClient asyncKeycloakClient;
+
+    public IamAdminService(KeycloakClient keycloakClient, StatusUpdater statusUpdater, TokenService tokenService,
+                           AsyncKeycloakClient asyncKeycloakClient) {
         this.keycloakClient = keycloakClient;
         this.statusUpdater = statusUpdater;
         this.tokenService = tokenService;
+        this.asyncKeycloakClient = asyncKeycloakClient;
     }
 
     public SetUpTenantResponse setUPTenant(SetUpTenantRequest request) {
@@ -379,11 +394,11 @@ public class IamAdminService {
                     user = user.toBuilder().setLastLoginAt(sessionRepresentation.getLastAccess()).build();
 
                 } else {
-                    EventRepresentation eventRepresentation = keycloakClient.getLastLoginEvent(String.valueOf(request.getTenantId()),
-                            request.getClientId(), request.getUser().getUsername());
+                    Long lastLogin = keycloakClient.getLastLoginTime(String.valueOf(request.getTenantId()),
+                            request.getUser().getUsername());
 
-                    if (eventRepresentation != null) {
-                        user = user.toBuilder().setLastLoginAt(eventRepresentation.getTime()).build();
+                    if (lastLogin != null) {
+                        user = user.toBuilder().setLastLoginAt(lastLogin).build();
                     }
                 }
                 return user;
@@ -408,34 +423,42 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to getUsers for " + request.getUser().getUsername());
             long initiationTime = System.currentTimeMillis();
-            List<UserRepresentation> representation = keycloakClient.getUsers(request.getAccessToken(),
-                    String.valueOf(request.getTenantId()), request.getOffset(), request.getLimit(),
+            String tenantId = String.valueOf(request.getTenantId());
+            List<UserRepresentation> representation = ServerTiming.record("kc-search", () -> keycloakClient.getUsers(request.getAccessToken(),
+                    tenantId, request.getOffset(), request.getLimit(),
                     request.getUser().getUsername(), request.getUser().getFirstName(),
                     request.getUser().getLastName(),
                     request.getUser().getEmail(),
-                    request.getUser().getId());
-            List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
-            representation.forEach(r -> {
-                boolean status = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), r.getUsername(), request.getAccessToken());
+                    request.getUser().getId()));
+            // Agents are filtered out with the attributes already returned by the search
+            List<UserRepresentation> endUsers = representation.stream()
+                    .filter(KeycloakClient::isEndUser)
+                    .collect(Collectors.toList());
 
-                if (status) {
+            // Sessions of the page are fetched concurrently, in the order of the users
+            List<UserSessionRepresentation> sessions = ServerTiming.record("kc-sessions",
+                    () -> asyncKeycloakClient.supplyAll(tenantId, endUsers, user -> keycloakClient.getLatestSession(tenantId, user)));
 
+            List<com.veda.central.core.iam.api.UserRepresentation> users = ServerTiming.record("last-login", () -> {
+                List<com.veda.central.core.iam.api.UserRepresentation> result = new ArrayList<>();
+                for (int i = 0; i < endUsers.size(); i++) {
+                    UserRepresentation r = endUsers.get(i);
                     com.veda.central.core.iam.api.UserRepresentation user = this.getUser(r, request.getClientId());
 
-                    UserSessionRepresentation sessionRepresentation = keycloakClient.getLatestSession(String.valueOf(request.getTenantId()),
-                            request.getClientId(), null, r.getUsername());
+                    UserSessionRepresentation sessionRepresentation = sessions.get(i);
 
                     if (sessionRepresentation != null) {
                         user = user.toBuilder().setLastLoginAt(sessionRepresentation.getLastAccess()).build();
                     } else {
-                        EventRepresentation eventRepresentation = keycloakClient.getLastLoginEvent(String.valueOf(request.getTenantId()), request.getClientId(), r.getUsername());
+                        Long lastLogin = keycloakClient.getLastLoginTime(tenantId, r.getUsername());
 
-                        if (eventRepresentation != null) {
-                            user = user.toBuilder().setLastLoginAt(eventRepresentation.getTime()).build();
+                        if (lastLogin != null) {
+                            user = user.toBuilder().setLastLoginAt(lastLogin).build();
                         }
                     }
-                    users.add(user);
+                    result.add(user);
                 }
+                return result;
             });
 
             long endTime = System.currentTimeMillis();
@@ -691,60 +714,15 @@ public class IamAdminService {
             List<com.veda.central.core.iam.api.UserRepresentation> userRepresentations = request.getUsersList();
             List<com.veda.central.core.iam.api.UserRepresentation> failedList = new ArrayList<>();
 
-            for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : userRepresentations) {
-                try {
-                    keycloakClient.createUser(String.valueOf(request.getTenantId()),
-                            userRepresentation.getUsername(),
-                            userRepresentation.getPassword(),
-                            userRepresentation.getFirstName(),
-                            userRepresentation.getLastName(),
-                            userRepresentation.getEmail(),
-                            userRepresentation.getTemporaryPassword(),
-                            request.getAccessToken());
-
-                    keycloakClient.enableUserAccount(String.valueOf(request.getTenantId()),
-                            request.getAccessToken(), userRepresentation.getUsername().toLowerCase());
-                    List<String> userList = new ArrayList<>();
-                    userList.add(userRepresentation.getUsername());
-
-                    if (!userRepresentation.getRealmRolesList().isEmpty()) {
-                        keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getRealmRolesList(),
-                                request.getClientId(), false);
-                    }
-                    if (!userRepresentation.getClientRolesList().isEmpty()) {
-                        keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getClientRolesList(),
-                                request.getClientId(), true);
-                    }
-
-                    if (!userRepresentation.getAttributesList().isEmpty()) {
-
-                        Map<String, List<String>> map = new HashMap<>();
-                        for (UserAttribute attribute : userRepresentation.getAttributesList()) {
-
-                            if (attribute.getKey().equals(Constants.REALM_AGENT)) {
-                                // Constants.REALM_AGENT cannot be used as a valid attribute
-                                continue;
-                            }
-                            map.put(attribute.getKey(), attribute.getValuesList());
-                        }
-
-                        keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), map, userList);
-                    }
-
-                } catch (UnauthorizedException ex) {
-                    String msg = " Error occurred while adding user " + userRepresentation.getUsername() +
-                            " to realm" + request.getTenantId();
-                    LOGGER.error(msg);
-                    throw new RuntimeException(msg, ex);
-
-                } catch (Exception ex) {
-                    if (ex.getMessage().contains("Unauthorized")) {
-                        throw new RuntimeException("Unauthorized request", ex);
-                    }
-
-                    LOGGER.error(" Error occurred while adding user " + userRepresentation.getUsername() + " to realm" + request.getTenantId());
-                    failedList.add(userRepresentation);
+            // The partial import runs with the admin client, so only use it for callers that could create the users themselves
+            if (bulkImportEnabled && keycloakClient.canManageUsers(String.valueOf(request.getTenantId()), request.getAccessToken())) {
+                for (int from = 0; from < userRepresentations.size(); from += bulkImportChunkSize) {
+                    List<com.veda.central.core.iam.api.UserRepresentation> chunk =
+                            userRepresentations.subList(from, Math.min(from + bulkImportChunkSize, userRepresentations.size()));
+                    failedList.addAll(importUsers(request, chunk));
                 }
+            } else {
+                failedList.addAll(registerUsersIndividually(request, userRepresentations));
             }
 
             if (failedList.isEmpty()) {
@@ -760,20 +738,160 @@ public class IamAdminService {
         }
     }
 
-    public com.veda.central.core.iam.api.OperationStatus addRolesToUsers(AddUserRolesRequest request) {
+    /**
+     * Imports a chunk of users with a single Keycloak partial import and returns the users that were not imported.
+     * If the import is rejected as a whole, the users of the chunk are registered one by one instead.
+     */
+    private List<com.veda.central.core.iam.api.UserRepresentation> importUsers(RegisterUsersRequest request,
+                                                                              List<com.veda.central.core.iam.api.UserRepresentation> userRepresentations) {
+        List<UserRepresentation> users = new ArrayList<>();
+        for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : userRepresentations) {
+            users.add(toImportRepresentation(userRepresentation, request.getClientId()));
+        }
+
+        Map<String, String> failures;
         try {
-            LOGGER.debug("Request received to addRolesToUsers for " + request.getTenantId());
+            failures = keycloakClient.importUsers(String.valueOf(request.getTenantId()), users);
+        } catch (Exception ex) {
+            LOGGER.warn("Bulk import of " + users.size() + " users to realm " + request.getTenantId() +
+                    " was rejected, registering them one by one", ex);
+            return registerUsersIndividually(request, userRepresentations);
+        }
+
+        List<com.veda.central.core.iam.api.UserRepresentation> failedList = new ArrayList<>();
+        for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : userRepresentations) {
+            String reason = failures.get(userRepresentation.getUsername());
+            if (reason != null) {
+                LOGGER.error(" Error occurred while adding user " + userRepresentation.getUsername() + " to realm" +
+                        request.getTenantId() + ", reason: " + reason);
+                failedList.add(userRepresentation);
+            }
+        }
+        return failedList;
+    }
+
+    private UserRepresentation toImportRepresentation(com.veda.central.core.iam.api.UserRepresentation userRepresentation, String clientId) {
+        UserRepresentation user = new UserRepresentation();
+        user.setUsername(userRepresentation.getUsername());
+        user.setFirstName(userRepresentation.getFirstName());
+        user.setLastName(userRepresentation.getLastName());
+        user.setEmail(userRepresentation.getEmail());
+        user.setEnabled(true);
 
-            List<String> validUserNames = new ArrayList<>();
+        CredentialRepresentation credential = new CredentialRepresentation();
+        credential.setType(CredentialRepresentation.PASSWORD);
+        credential.setValue(userRepresentation.getPassword());
+        credential.setTemporary(userRepresentation.getTemporaryPassword());
+        user.setCredentials(Collections.singletonList(credential));
 
-            for (String username : request.getUsernamesList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username)) {
-                    validUserNames.add(username);
+        if (!userRepresentation.getRealmRolesList().isEmpty()) {
+            user.setRealmRoles(new ArrayList<>(userRepresentation.getRealmRolesList()));
+        }
+        if (!userRepresentation.getClientRolesList().isEmpty()) {
+            Map<String, List<String>> clientRoles = new HashMap<>();
+            clientRoles.put(clientId, new ArrayList<>(userRepresentation.getClientRolesList()));
+            user.setClientRoles(clientRoles);
+        }
+
+        if (!userRepresentation.getAttributesList().isEmpty()) {
+            Map<String, List<String>> attributes = new HashMap<>();
+            for (UserAttribute attribute : userRepresentation.getAttributesList()) {
+                if (attribute.getKey().equals(Constants.REALM_AGENT)) {
+                    // Constants.REALM_AGENT cannot be used as a valid attribute
+                    continue;
                 }
+                attributes.put(attribute.getKey(), new ArrayList<>(attribute.getValuesList()));
             }
+            user.setAttributes(attributes);
+        }
+        return user;
+    }
+
+    /**
+     * Registers, enables and assigns the roles and attributes of each user with separate calls, and returns the
+     * users that could not be registered.
+     */
+    private List<com.veda.central.core.iam.api.UserRepresentation> registerUsersIndividually(RegisterUsersRequest request,
+                                                                                            List<com.veda.central.core.iam.api.UserRepresentation> userRepresentations) {
+        // Users are registered concurrently, each result tells whether the user at the same index was registered
+        String tenantId = String.valueOf(request.getTenantId());
+        List<Boolean> registered = asyncKeycloakClient.supplyAll(tenantId, userRepresentations, userRepresentation -> {
+            try {
+                keycloakClient.createUser(String.valueOf(request.getTenantId()),
+                        userRepresentation.getUsername(),
+                        userRepresentation.getPassword(),
+                        userRepresentation.getFirstName(),
+                        userRepresentation.getLastName(),
+                        userRepresentation.getEmail(),
+                        userRepresentation.getTemporaryPassword(),
+                        request.getAccessToken());
+
+                keycloakClient.enableUserAccount(String.valueOf(request.getTenantId()),
+                        request.getAccessToken(), userRepresentation.getUsername().toLowerCase());
+                List<String> userList = new ArrayList<>();
+                userList.add(userRepresentation.getUsername());
+
+                if (!userRepresentation.getRealmRolesList().isEmpty()) {
+                    keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getRealmRolesList(),
+                            request.getClientId(), false);
+                }
+                if (!userRepresentation.getClientRolesList().isEmpty()) {
+                    keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()), userList, userRepresentation.getClientRolesList(),
+                            request.getClientId(), true);
+                }
+
+                if (!userRepresentation.getAttributesList().isEmpty()) {
+
+                    Map<String, List<String>> map = new HashMap<>();
+                    for (UserAttribute attribute : userRepresentation.getAttributesList()) {
 
-            keycloakClient.addRolesToUsers(request.getAccessToken(), String.valueOf(request.getTenantId()),
-                    validUserNames, request.getRolesList(), request.getClientId(), request.getClientLevel());
+                        if (attribute.getKey().equals(Constants.REALM_AGENT)) {
+                            // Constants.REALM_AGENT cannot be used as a valid attribute
+                            continue;
+                        }
+                        map.put(attribute.getKey(), attribute.getValuesList());
+                    }
+
+                    keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), map, userList);
+                }
+
+                return true;
+
+            } catch (UnauthorizedException ex) {
+                String msg = " Error occurred while adding user " + userRepresentation.getUsername() +
+                        " to realm" + request.getTenantId();
+                LOGGER.error(msg);
+                throw new RuntimeException(msg, ex);
+
+            } catch (Exception ex) {
+                if (ex.getMessage().contains("Unauthorized")) {
+                    throw new RuntimeException("Unauthorized request", ex);
+                }
+
+                LOGGER.error(" Error occurred while adding user " + userRepresentation.getUsername() + " to realm" + request.getTenantId());
+                return false;
+            }
+        });
+
+        List<com.veda.central.core.iam.api.UserRepresentation> failedList = new ArrayList<>();
+        for (int i = 0; i < userRepresentations.size(); i++) {
+            if (!registered.get(i)) {
+                failedList.add(userRepresentations.get(i));
+            }
+        }
+        return failedList;
+    }
+
+    public com.veda.central.core.iam.api.OperationStatus addRolesToUsers(AddUserRolesRequest request) {
+        try {
+            LOGGER.debug("Request received to addRolesToUsers for " + request.getTenantId());
+
+            String tenantId = String.valueOf(request.getTenantId());
+
+            asyncKeycloakClient.supplyAll(tenantId, request.getUsernamesList(), username ->
+                    keycloakClient.isValidEndUser(tenantId, username) &&
+                            keycloakClient.addRolesToUsers(request.getAccessToken(), tenantId, Collections.singletonList(username),
+                                    request.getRolesList(), request.getClientId(), request.getClientLevel()));
             statusUpdater.updateStatus(IAMOperations.ADD_ROLES_TO_USERS.name(), OperationStatus.SUCCESS,
                     request.getTenantId(), request.getPerformedBy());
 
@@ -978,13 +1096,7 @@ public class IamAdminService {
             LOGGER.debug("Request received to addUserAttributes " + request.getTenantId());
 
             List<UserAttribute> attributes = request.getAttributesList();
-            List<String> validUserNames = new ArrayList<>();
-
-            for (String username : request.getUsersList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username, request.getAccessToken())) {
-                    validUserNames.add(username);
-                }
-            }
+            String tenantId = String.valueOf(request.getTenantId());
 
             Map<String, List<String>> attributeMap = new HashMap<>();
             for (UserAttribute attribute : attributes) {
@@ -996,7 +1108,9 @@ public class IamAdminService {
                 attributeMap.put(attribute.getKey(), attribute.getValuesList());
             }
 
-            keycloakClient.addUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap, validUserNames);
+            asyncKeycloakClient.supplyAll(tenantId, request.getUsersList(), username ->
+                    keycloakClient.isValidEndUser(tenantId, username, request.getAccessToken()) &&
+                            keycloakClient.addUserAttributes(tenantId, request.getAccessToken(), attributeMap, Collections.singletonList(username)));
 
             statusUpdater.updateStatus(IAMOperations.ADD_USER_ATTRIBUTE.name(),
                     OperationStatus.SUCCESS,
@@ -1022,13 +1136,7 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to delete user attributes " + request.getTenantId());
 
-            List<String> validUserNames = new ArrayList<>();
-            for (String username : request.getUsersList()) {
-                if (keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), username, request.getAccessToken())) {
-                    validUserNames.add(username);
-                }
-            }
-
+            String tenantId = String.valueOf(request.getTenantId());
             List<UserAttribute> attributes = request.getAttributesList();
 
             Map<String, List<String>> attributeMap = new HashMap<>();
@@ -1036,7 +1144,9 @@ public class IamAdminService {
                 attributeMap.put(attribute.getKey(), attribute.getValuesList());
             }
 
-            keycloakClient.deleteUserAttributes(String.valueOf(request.getTenantId()), request.getAccessToken(), attributeMap, validUserNames);
+            asyncKeycloakClient.supplyAll(tenantId, request.getUsersList(), username ->
+                    keycloakClient.isValidEndUser(tenantId, username, request.getAccessToken()) &&
+                            keycloakClient.deleteUserAttributes(tenantId, request.getAccessToken(), attributeMap, Collections.singletonList(username)));
             statusUpdater.updateStatus(IAMOperations.DELETE_USER_ATTRIBUTES.name(), OperationStatus.SUCCESS,
                     request.getTenantId(), request.getPerformedBy());
 
@@ -1712,38 +1822,17 @@ public class IamAdminService {
         try {
             LOGGER.debug("Request received to getAllResources for tenant " + request.getTenantId());
 
-            List<UserRepresentation> representations = keycloakClient.getAllUsers(String.valueOf(request.getTenantId()));
-            GetAllResourcesResponse resourcesResponse = GetAllResourcesResponse.newBuilder().build();
-            if (!representations.isEmpty()) {
-                if (request.getResourceType().name().equals(ResourceTypes.USER.name())) {
-                    List<com.veda.central.core.iam.api.UserRepresentation> users = new ArrayList<>();
-                    for (UserRepresentation userRepresentation : representations) {
-                        boolean validationStatus = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()), userRepresentation.getUsername());
-                        if (validationStatus) {
-                            users.add(getUser(userRepresentation, request.getClientId()));
-                        }
-                    }
-
-                    return resourcesResponse.toBuilder().addAllUsers(users).build();
+            GetAllResourcesResponse.Builder resourcesResponse = GetAllResourcesResponse.newBuilder();
+            long scanned = getAllResources(request, page -> resourcesResponse
+                    .addAllUsers(page.getUsersList())
+                    .addAllAgents(page.getAgentsList()));
 
-                } else {
-                    List<Agent> agents = new ArrayList<>();
-                    for (UserRepresentation userRepresentation : representations) {
-                        boolean validationStatus = keycloakClient.isValidEndUser(String.valueOf(request.getTenantId()),
-                                userRepresentation.getUsername());
-                        if (!validationStatus) {
-                            agents.add(getAgent(userRepresentation));
-                        }
-                    }
-                    return resourcesResponse.toBuilder().addAllAgents(agents).build();
-                }
-
-            } else {
+            if (scanned == 0) {
                 String msg = " Empty resources";
                 LOGGER.error(msg);
                 throw new RuntimeException(msg);
             }
-
+            return resourcesResponse.build();
 
         } catch (Exception ex) {
             String msg = " Get all resources failed";
@@ -1756,6 +1845,35 @@ public class IamAdminService {
         }
     }
 
+    /**
+     * Pages through the users of a tenant and passes the users or agents of each page to the consumer,
+     * so large tenants can be processed with bounded memory.
+     *
+     * @param request      the tenant and the type of resources to fetch
+     * @param pageConsumer receives the resources of each page
+     * @return the number of Keycloak users scanned
+     */
+    public long getAllResources(GetAllResources request, Consumer<GetAllResourcesResponse> pageConsumer) {
+        boolean usersRequested = request.getResourceType().name().equals(ResourceTypes.USER.name());
+        AtomicLong scanned = new AtomicLong();
+
+        keycloakClient.streamUserPages(String.valueOf(request.getTenantId())).forEach(page -> {
+            scanned.addAndGet(page.size());
+            GetAllResourcesResponse.Builder pageResponse = GetAllResourcesResponse.newBuilder();
+
+            for (UserRepresentation userRepresentation : page) {
+                boolean endUser = KeycloakClient.isEndUser(userRepresentation);
+                if (usersRequested && endUser) {
+                    pageResponse.addUsers(getUser(userRepresentation, request.getClientId()));
+                } else if (!usersRequested && !endUser) {
+                    pageResponse.addAgents(getAgent(userRepresentation));
+                }
+            }
+            pageConsumer.accept(pageResponse.build());
+        });
+        return scanned.get();
+    }
+
     public String getIamServerURL() {
         return iamServerURL;
     }
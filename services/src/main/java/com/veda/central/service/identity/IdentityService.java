@@ -20,6 +20,9 @@
 package com.veda.central.service.identity;
 
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jose.KeySourceException;
 import com.veda.central.api.exception.UnauthorizedException;
 import com.veda.central.core.constants.Constants;
 import com.veda.central.core.identity.api.AuthToken;
@@ -38,11 +41,16 @@ import com.veda.central.core.identity.api.OperationStatus;
 import com.veda.central.core.identity.api.TokenResponse;
 import com.veda.central.core.identity.authzcache.AuthzCacheEntry;
 import com.veda.central.core.identity.authzcache.AuthzCacheIndex;
+import com.veda.central.core.identity.authzcache.AuthzCacheManager;
 import com.veda.central.core.identity.authzcache.AuthzCachedStatus;
-import com.veda.central.core.identity.authzcache.DefaultAuthzCacheManager;
 import com.veda.central.core.identity.exceptions.AuthSecurityException;
 import com.veda.central.service.auth.TokenService;
+import com.veda.central.service.federated.client.keycloak.KeycloakResilience;
 import com.veda.central.service.federated.client.keycloak.auth.KeycloakAuthClient;
+import com.veda.central.service.federated.client.keycloak.auth.KeycloakTokenVerifier;
+import com.veda.central.service.federated.client.keycloak.auth.ServiceAccountTokenCache;
+import com.veda.central.service.util.TokenDigests;
+import jakarta.annotation.PostConstruct;
 import org.apache.http.HttpStatus;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -52,6 +60,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -65,23 +74,56 @@ public class IdentityService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(IdentityService.class);
 
-    private static final int CACHE_LIFE_TIME = 1000 * 60 * 60;
+    // time to live of a cached authorization decision in seconds
+    private static final int CACHE_LIFE_TIME = 60 * 60;
 
     @Autowired
     private KeycloakAuthClient keycloakAuthClient;
 
     @Autowired
-    private DefaultAuthzCacheManager authzCacheManager;
+    private AuthzCacheManager authzCacheManager;
 
     @Autowired
     private TokenService tokenService;
 
+    @Autowired
+    private KeycloakTokenVerifier keycloakTokenVerifier;
+
+    @Autowired
+    private ServiceAccountTokenCache serviceAccountTokenCache;
+
     @Value("${veda-auth.identity.auth.cache.enabled:false}")
     private boolean isAuthzCacheEnabled;
 
+    @Value("${veda-auth.identity.auth.jwt.local-verification:true}")
+    private boolean isLocalTokenVerificationEnabled;
+
+    @Value("${veda-auth.identity.auth.jwt.userinfo-fallback:false}")
+    private boolean isUserInfoFallbackEnabled;
+
     @Value("${veda-auth.api.domain}")
     private String apiDomain;
 
+    @Value("${veda-auth.identity.auth.fallback.enabled:true}")
+    private boolean isDecisionFallbackEnabled;
+
+    @Value("${veda-auth.identity.auth.fallback.max-staleness:300}")
+    private long decisionMaxStaleness;
+
+    @Value("${veda-auth.identity.auth.fallback.max-size:10000}")
+    private long decisionMaxSize;
+
+    // last computed authentication decisions keyed by a digest of the user, tenant, client and token, served while Keycloak is unavailable
+    private Cache<String, Boolean> lastDecisions;
+
+    @PostConstruct
+    public void init() {
+        lastDecisions = Caffeine.newBuilder()
+                .maximumSize(decisionMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(decisionMaxStaleness))
+                .build();
+    }
+
     public AuthToken authenticate(AuthenticationRequest request) {
         try {
             LOGGER.debug("Authentication request received for " + request.getUsername());
@@ -149,11 +191,13 @@ public class IdentityService {
     public IsAuthenticatedResponse isAuthenticated(AuthToken request) {
         String username = null;
         String tenantId = null;
+        String iamClientId = null;
 
         for (Claim claim : request.getClaimsList()) {
             switch (claim.getKey()) {
                 case "username" -> username = claim.getValue();
                 case "tenantId" -> tenantId = claim.getValue();
+                case "iamClientId" -> iamClientId = claim.getValue();
             }
         }
 
@@ -182,18 +226,18 @@ public class IdentityService {
                     case NOT_CACHED -> {
                         LOGGER.debug(authzDecisionCacheLog, username, accessToken, "is not in the");
                         LOGGER.info("Executing is User Authenticated");
-                        isAuthenticated = keycloakAuthClient.isUserAuthenticated(username, tenantId, accessToken);
+                        isAuthenticated = isUserAuthenticatedWithFallback(username, tenantId, iamClientId, accessToken);
                         // cache the authorization decision
                         long currentTime = System.currentTimeMillis();
                         authzCacheManager.addToAuthzCache(
                                 new AuthzCacheIndex(username, tenantId, accessToken),
-                                new AuthzCacheEntry(isAuthenticated, currentTime + CACHE_LIFE_TIME, currentTime));
+                                new AuthzCacheEntry(isAuthenticated, CACHE_LIFE_TIME, currentTime));
                     }
                     default -> throw new AuthSecurityException("Error in reading from the authorization cache.");
                 }
 
             } else {
-                isAuthenticated = keycloakAuthClient.isUserAuthenticated(username, tenantId, tokenService.getKCToken(accessToken));
+                isAuthenticated = isUserAuthenticatedWithFallback(username, tenantId, iamClientId, accessToken);
             }
 
             if (isAuthenticated) {
@@ -218,8 +262,8 @@ public class IdentityService {
     public AuthToken getUserManagementServiceAccountAccessToken(GetUserManagementSATokenRequest request) {
         try {
             LOGGER.debug("Retrieving service account access token for " + request.getClientId());
-            String accessToken = keycloakAuthClient.getUserManagementServiceAccountAccessToken(request.getClientId(),
-                    request.getClientSecret(), String.valueOf(request.getTenantId()));
+            String accessToken = serviceAccountTokenCache.getAccessToken(request.getClientId(),
+                    request.getClientSecret(), request.getTenantId());
 
             AuthToken.Builder builder = AuthToken.newBuilder().setAccessToken(accessToken);
 
@@ -459,6 +503,49 @@ public class IdentityService {
         return object;
     }
 
+    /**
+     * Computes the authentication decision and remembers it. When Keycloak is unavailable the last decision computed
+     * for the same user and token is served instead, provided it is not older than the configured staleness bound.
+     */
+    private boolean isUserAuthenticatedWithFallback(String username, String tenantId, String clientId, String accessToken) throws Exception {
+        String index = TokenDigests.fingerprint(String.join("\n", String.valueOf(username), String.valueOf(tenantId),
+                String.valueOf(clientId), String.valueOf(accessToken)));
+        try {
+            boolean isAuthenticated = isUserAuthenticated(username, tenantId, clientId, tokenService.getKCToken(accessToken));
+            if (isDecisionFallbackEnabled) {
+                lastDecisions.put(index, isAuthenticated);
+            }
+            return isAuthenticated;
+
+        } catch (Exception ex) {
+            Boolean lastDecision = isDecisionFallbackEnabled && isUpstreamUnavailable(ex) ? lastDecisions.getIfPresent(index) : null;
+            if (lastDecision == null) {
+                throw ex;
+            }
+            LOGGER.warn("Keycloak is unavailable, serving the last authentication decision of user {} in tenant {}", username, tenantId);
+            return lastDecision;
+        }
+    }
+
+    private static boolean isUpstreamUnavailable(Exception ex) {
+        return ex instanceof KeySourceException || KeycloakResilience.isUnavailable(ex);
+    }
+
+    private boolean isUserAuthenticated(String username, String tenantId, String clientId, String kcToken) throws KeySourceException {
+        if (isLocalTokenVerificationEnabled) {
+            try {
+                return keycloakTokenVerifier.isUserAuthenticated(username, tenantId, clientId, kcToken);
+
+            } catch (KeySourceException ex) {
+                if (!isUserInfoFallbackEnabled) {
+                    throw ex;
+                }
+                LOGGER.warn("Local token verification is not available for tenant {}, falling back to the userinfo endpoint", tenantId);
+            }
+        }
+        return keycloakAuthClient.isUserAuthenticated(username, tenantId, kcToken);
+    }
+
     private TokenResponse generateTokenResponse(JSONObject object) throws Exception {
         if (object != null && object.has("access_token")) {
             return TokenResponse.newBuilder()
@@ -25,7 +25,6 @@ import com.veda.central.core.credential.store.api.GetCredentialRequest;
 import com.veda.central.core.credential.store.api.Type;
 import com.veda.central.core.identity.api.AuthToken;
 import com.veda.central.core.identity.api.AuthenticationRequest;
-import com.veda.central.core.identity.api.Claim;
 import com.veda.central.core.identity.api.GetAuthorizationEndpointRequest;
 import com.veda.central.core.identity.api.GetOIDCConfiguration;
 import com.veda.central.core.identity.api.GetTokenRequest;
@@ -42,15 +41,12 @@ import com.veda.central.core.identity.management.api.GetCredentialsRequest;
 import com.veda.central.core.tenant.profile.api.GetTenantRequest;
 import com.veda.central.core.tenant.profile.api.GetTenantResponse;
 import com.veda.central.core.tenant.profile.api.Tenant;
-import com.veda.central.core.user.profile.api.UserProfile;
 import com.veda.central.service.auth.TokenService;
 import com.veda.central.service.credential.store.CredentialStoreService;
 import com.veda.central.service.exceptions.InternalServerException;
 import com.veda.central.service.identity.Constants;
 import com.veda.central.service.identity.IdentityService;
 import com.veda.central.service.profile.TenantProfileService;
-import com.veda.central.service.profile.UserProfileService;
-import io.grpc.Context;
 import org.apache.commons.lang3.StringUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -60,8 +56,6 @@ import org.springframework.stereotype.Service;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * The IdentityManagementService class provides methods for managing identities, authentication, and authorization.
@@ -74,15 +68,15 @@ public class IdentityManagementService {
     private final IdentityService identityService;
     private final TenantProfileService tenantProfileService;
     private final CredentialStoreService credentialStoreService;
-    private final UserProfileService userProfileService;
+    private final UserProfileProvisioner userProfileProvisioner;
     private final TokenService tokenService;
 
 
-    public IdentityManagementService(IdentityService identityService, TenantProfileService tenantProfileService, CredentialStoreService credentialStoreService, UserProfileService userProfileService, TokenService tokenService) {
+    public IdentityManagementService(IdentityService identityService, TenantProfileService tenantProfileService, CredentialStoreService credentialStoreService, UserProfileProvisioner userProfileProvisioner, TokenService tokenService) {
         this.identityService = identityService;
         this.tenantProfileService = tenantProfileService;
         this.credentialStoreService = credentialStoreService;
-        this.userProfileService = userProfileService;
+        this.userProfileProvisioner = userProfileProvisioner;
         this.tokenService = tokenService;
     }
 
@@ -243,49 +237,9 @@ public class IdentityManagementService {
 
             TokenResponse response = identityService.getToken(request);
 
-            Context ctx = Context.current().fork();
-            ctx.run(() -> {
-                long tenantId = request.getTenantId();
-                if (StringUtils.isNotBlank(response.getAccessToken())) {
-                    LOGGER.debug(response.getAccessToken());
-                    String clientId = request.getClientId();
-                    AuthToken authToken = AuthToken.newBuilder()
-                            .setAccessToken(response.getAccessToken())
-                            .addClaims(Claim.newBuilder().setKey("clientId").setValue(clientId).build())
-                            .addClaims(Claim.newBuilder().setKey("username").setValue("veda-auth-user"))
-                            .addClaims(Claim.newBuilder().setKey("tenantId").setValue(String.valueOf(tenantId))
-                                    .build()).build();
-                    User user = identityService.getUser(authToken);
-                    LOGGER.debug("User" + user.getUsername());
-
-                    UserProfile userProfile = UserProfile.newBuilder()
-                            .setUsername(user.getUsername())
-                            .setFirstName(user.getFirstName())
-                            .setLastName(user.getLastName())
-                            .setEmail(user.getEmailAddress())
-                            .build();
-                    com.veda.central.core.user.profile.api.UserProfileRequest req = com.veda.central.core.user.profile.api.UserProfileRequest
-                            .newBuilder()
-                            .setTenantId(request.getTenantId())
-                            .setProfile(userProfile)
-                            .build();
-
-                    Map<String, String> values = new HashMap<>();
-                    values.put("param:username", user.getUsername());
-                    values.put("param:first_name", user.getFirstName());
-                    values.put("param:last_name", user.getLastName());
-                    values.put("param:email", user.getEmailAddress());
-                    values.put("param:tenant_id", request.getClientId());
-
-                    userProfileService.createUserProfile(req);
-                    com.veda.central.core.tenant.profile.api.GetTenantRequest tenantReq = com.veda.central.core.tenant.profile.api.GetTenantRequest.newBuilder()
-                            .setTenantId(request.getTenantId()).build();
-
-                    com.veda.central.core.tenant.profile.api.GetTenantResponse tenantResponse = tenantProfileService.getTenant(tenantReq);
-                    values.put("param:tenant_name", tenantResponse.getTenant().getClientName());
-                    // TODO send an email to the tenant
-                }
-            });
+            if (StringUtils.isNotBlank(response.getAccessToken())) {
+                userProfileProvisioner.submit(request.getTenantId(), request.getClientId(), response.getAccessToken());
+            }
 
             String s = tokenService.generateWithCustomClaims(response.getAccessToken(), request.getTenantId());
             return response.toBuilder().setAccessToken(s).build();
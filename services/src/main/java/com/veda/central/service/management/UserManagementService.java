@@ -21,6 +21,7 @@ package com.veda.central.service.management;
 
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.SignedJWT;
+import com.veda.central.api.util.ServerTiming;
 import com.veda.central.core.constants.Constants;
 import com.veda.central.core.iam.api.AddExternalIDPLinksRequest;
 import com.veda.central.core.iam.api.AddUserAttributesRequest;
@@ -32,7 +33,6 @@ import com.veda.central.core.iam.api.DeleteUserRolesRequest;
 import com.veda.central.core.iam.api.FindUsersRequest;
 import com.veda.central.core.iam.api.FindUsersResponse;
 import com.veda.central.core.iam.api.GetAllResources;
-import com.veda.central.core.iam.api.GetAllResourcesResponse;
 import com.veda.central.core.iam.api.GetExternalIDPsRequest;
 import com.veda.central.core.iam.api.GetExternalIDPsResponse;
 import com.veda.central.core.iam.api.OperationStatus;
@@ -532,7 +532,8 @@ public class UserManagementService {
                     .setClientSecret(request.getClientSec())
                     .setTenantId(request.getTenantId())
                     .build();
-            AuthToken token = identityService.getUserManagementServiceAccountAccessToken(userManagementSATokenRequest);
+            AuthToken token = ServerTiming.record("sa-token",
+                    () -> identityService.getUserManagementServiceAccountAccessToken(userManagementSATokenRequest));
 
             if (token != null && token.getAccessToken() != null) {
 
@@ -1291,11 +1292,8 @@ public class UserManagementService {
                         .setTenantId(request.getTenantId())
                         .setResourceType(ResourceTypes.USER)
                         .build();
-                GetAllResourcesResponse response = iamAdminService.getAllResources(resources);
-
-                if (response != null && !response.getUsersList().isEmpty()) {
-
-                    for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : response.getUsersList()) {
+                long scanned = iamAdminService.getAllResources(resources, page -> {
+                    for (com.veda.central.core.iam.api.UserRepresentation userRepresentation : page.getUsersList()) {
 
                         LOGGER.debug("User Name " + userRepresentation.getUsername());
                         UserProfile profile = convertToProfile(userRepresentation);
@@ -1314,7 +1312,9 @@ public class UserManagementService {
                             userProfileService.updateUserProfile(profileRequest);
                         }
                     }
-                } else {
+                });
+
+                if (scanned == 0) {
                     LOGGER.debug("Empty");
                 }
             });
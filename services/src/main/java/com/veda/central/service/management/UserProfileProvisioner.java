@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.management;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.veda.central.core.identity.api.AuthToken;
+import com.veda.central.core.identity.api.Claim;
+import com.veda.central.core.identity.api.User;
+import com.veda.central.core.user.profile.api.UserProfile;
+import com.veda.central.service.federated.client.keycloak.AsyncKeycloakClient;
+import com.veda.central.service.identity.IdentityService;
+import com.veda.central.service.profile.UserProfileService;
+import com.veda.central.service.util.TokenDigests;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Provisions the user profiles of users that obtained tokens, off the token endpoint's critical path.
+ * Token events are queued per tenant and username, so repeated logins and refreshes within the window coalesce into
+ * one event carrying the latest token. Events whose name and email claims match a profile provisioned recently are
+ * skipped without any call. The queue is drained on a background thread every window: user info is fetched
+ * concurrently and the new profiles of each tenant are written in batches. When the queue is full, events are dropped;
+ * the user is provisioned on a later login.
+ */
+@Component
+public class UserProfileProvisioner {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserProfileProvisioner.class);
+
+    private static final String EVENTS_METRIC = "veda.profile.provisioning.events";
+
+    private final IdentityService identityService;
+    private final UserProfileService userProfileService;
+    private final AsyncKeycloakClient asyncKeycloakClient;
+    private final boolean enabled;
+    private final int queueCapacity;
+    private final int batchSize;
+
+    // tenant and username -> latest event
+    private final Map<String, ProvisioningEvent> pending = new ConcurrentHashMap<>();
+    // tenant and username -> fingerprint of the claims last provisioned
+    private final Cache<String, String> recentlySeen;
+    private final ScheduledExecutorService drainer;
+
+    private final Counter coalesced;
+    private final Counter skipped;
+    private final Counter dropped;
+    private final Counter provisioned;
+
+    public UserProfileProvisioner(IdentityService identityService, UserProfileService userProfileService,
+                                  AsyncKeycloakClient asyncKeycloakClient, MeterRegistry meterRegistry,
+                                  @Value("${veda-auth.profile-provisioning.enabled:true}") boolean enabled,
+                                  @Value("${veda-auth.profile-provisioning.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${veda-auth.profile-provisioning.window:1000}") long window,
+                                  @Value("${veda-auth.profile-provisioning.batch-size:100}") int batchSize,
+                                  @Value("${veda-auth.profile-provisioning.recently-seen.size:100000}") long recentlySeenSize,
+                                  @Value("${veda-auth.profile-provisioning.recently-seen.ttl:600}") long recentlySeenTTL) {
+        this.identityService = identityService;
+        this.userProfileService = userProfileService;
+        this.asyncKeycloakClient = asyncKeycloakClient;
+        this.enabled = enabled;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.recentlySeen = Caffeine.newBuilder()
+                .maximumSize(recentlySeenSize)
+                .expireAfterWrite(Duration.ofSeconds(recentlySeenTTL))
+                .build();
+
+        this.coalesced = eventCounter(meterRegistry, "coalesced");
+        this.skipped = eventCounter(meterRegistry, "skipped");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.provisioned = eventCounter(meterRegistry, "provisioned");
+
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "profile-provisioner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            drainer.scheduleWithFixedDelay(this::drain, window, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Queues the provisioning of the profile of the user the access token was issued to. Never blocks on remote calls.
+     */
+    public void submit(long tenantId, String clientId, String accessToken) {
+        ProvisioningEvent event;
+        try {
+            event = toEvent(tenantId, clientId, accessToken);
+        } catch (ParseException ex) {
+            LOGGER.warn("Cannot provision the profile of the user of a malformed access token in tenant {}", tenantId);
+            return;
+        }
+
+        if (event.fingerprint.equals(recentlySeen.getIfPresent(event.key))) {
+            skipped.increment();
+            return;
+        }
+
+        if (!enabled) {
+            provision(List.of(event));
+            return;
+        }
+
+        if (pending.replace(event.key, event) != null) {
+            coalesced.increment();
+            return;
+        }
+        if (pending.size() >= queueCapacity) {
+            dropped.increment();
+            LOGGER.warn("Profile provisioning queue is full, dropping the event of {}", event.key);
+            return;
+        }
+        pending.put(event.key, event);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        drainer.shutdown();
+        try {
+            if (drainer.awaitTermination(10, TimeUnit.SECONDS)) {
+                drain();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        try {
+            List<ProvisioningEvent> events = new ArrayList<>();
+            for (String key : new ArrayList<>(pending.keySet())) {
+                ProvisioningEvent event = pending.remove(key);
+                if (event != null) {
+                    events.add(event);
+                }
+                if (events.size() == batchSize) {
+                    provision(events);
+                    events = new ArrayList<>();
+                }
+            }
+            if (!events.isEmpty()) {
+                provision(events);
+            }
+        } catch (Exception ex) {
+            LOGGER.error("Error occurred while provisioning user profiles", ex);
+        }
+    }
+
+    private void provision(List<ProvisioningEvent> events) {
+        Map<Long, List<CompletableFuture<ProvisionedUser>>> fetches = new HashMap<>();
+        for (ProvisioningEvent event : events) {
+            try {
+                fetches.computeIfAbsent(event.tenantId, k -> new ArrayList<>())
+                        .add(asyncKeycloakClient.supply(String.valueOf(event.tenantId), () -> fetchUser(event)));
+            } catch (Exception ex) {
+                LOGGER.error("Error occurred while submitting the provisioning of {}", event.key, ex);
+            }
+        }
+
+        fetches.forEach((tenantId, futures) -> {
+            List<ProvisionedUser> users = new ArrayList<>();
+            for (CompletableFuture<ProvisionedUser> future : futures) {
+                try {
+                    users.add(future.join());
+                } catch (Exception ex) {
+                    LOGGER.error("Error occurred while fetching the user to provision in tenant {}", tenantId, ex);
+                }
+            }
+            if (users.isEmpty()) {
+                return;
+            }
+
+            try {
+                int created = userProfileService.createUserProfiles(tenantId, users.stream().map(user -> user.profile).toList());
+                users.forEach(user -> recentlySeen.put(user.event.key, user.event.fingerprint));
+                provisioned.increment(created);
+            } catch (Exception ex) {
+                LOGGER.error("Error occurred while writing {} user profiles of tenant {}", users.size(), tenantId, ex);
+            }
+        });
+    }
+
+    private ProvisionedUser fetchUser(ProvisioningEvent event) {
+        AuthToken authToken = AuthToken.newBuilder()
+                .setAccessToken(event.accessToken)
+                .addClaims(Claim.newBuilder().setKey("clientId").setValue(event.clientId).build())
+                .addClaims(Claim.newBuilder().setKey("username").setValue("veda-auth-user"))
+                .addClaims(Claim.newBuilder().setKey("tenantId").setValue(String.valueOf(event.tenantId)).build())
+                .build();
+        User user = identityService.getUser(authToken);
+        LOGGER.debug("User" + user.getUsername());
+
+        UserProfile profile = UserProfile.newBuilder()
+                .setUsername(user.getUsername())
+                .setFirstName(user.getFirstName())
+                .setLastName(user.getLastName())
+                .setEmail(user.getEmailAddress())
+                .build();
+        return new ProvisionedUser(event, profile);
+    }
+
+    private static ProvisioningEvent toEvent(long tenantId, String clientId, String accessToken) throws ParseException {
+        JWTClaimsSet claims = SignedJWT.parse(accessToken).getJWTClaimsSet();
+        String username = claims.getStringClaim("preferred_username");
+        String fingerprint = TokenDigests.fingerprint(String.join("\n", String.valueOf(username),
+                String.valueOf(claims.getStringClaim("given_name")), String.valueOf(claims.getStringClaim("family_name")),
+                String.valueOf(claims.getStringClaim("email"))));
+        String key = tenantId + ":" + (username != null ? username : claims.getSubject());
+        return new ProvisioningEvent(key, tenantId, clientId, accessToken, fingerprint);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(EVENTS_METRIC)
+                .description("Profile provisioning events by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static class ProvisioningEvent {
+
+        private final String key;
+        private final long tenantId;
+        private final String clientId;
+        private final String accessToken;
+        private final String fingerprint;
+
+        ProvisioningEvent(String key, long tenantId, String clientId, String accessToken, String fingerprint) {
+            this.key = key;
+            this.tenantId = tenantId;
+            this.clientId = clientId;
+            this.accessToken = accessToken;
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private static class ProvisionedUser {
+
+        private final ProvisioningEvent event;
+        private final UserProfile profile;
+
+        ProvisionedUser(ProvisioningEvent event, UserProfile profile) {
+            this.event = event;
+            this.profile = profile;
+        }
+    }
+}
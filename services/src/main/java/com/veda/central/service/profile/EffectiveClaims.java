@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.profile;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The group and scope claims a user gets in the issued tokens, derived from the groups the user is a member of.
+ */
+public class EffectiveClaims {
+
+    private final List<String> groups;
+    private final List<String> scopes;
+
+    public EffectiveClaims(List<String> groups, List<String> scopes) {
+        this.groups = Collections.unmodifiableList(groups);
+        this.scopes = Collections.unmodifiableList(scopes);
+    }
+
+    /**
+     * Returns the external ids of the groups of the user.
+     */
+    public List<String> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the distinct role values of the groups of the user.
+     */
+    public List<String> getScopes() {
+        return scopes;
+    }
+}
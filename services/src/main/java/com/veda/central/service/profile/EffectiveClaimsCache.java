@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.profile;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.veda.central.core.model.user.Group;
+import com.veda.central.core.model.user.GroupRole;
+import com.veda.central.core.model.user.UserGroupMembership;
+import com.veda.central.core.repo.user.GroupMembershipRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Bounded cache of the {@link EffectiveClaims} of users keyed by tenant and username, so that issuing or refreshing
+ * a token does not load the group memberships of the user. {@link UserProfileService} drops the entries of the
+ * affected users whenever a membership or a group changes; the TTL only bounds changes made through other replicas.
+ */
+@Component
+public class EffectiveClaimsCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EffectiveClaimsCache.class);
+
+    private final GroupMembershipRepository groupMembershipRepository;
+    private final boolean enabled;
+    private final Cache<String, EffectiveClaims> cache;
+
+    public EffectiveClaimsCache(GroupMembershipRepository groupMembershipRepository,
+                                @Value("${veda-auth.identity.auth.effective-claims-cache.enabled:true}") boolean enabled,
+                                @Value("${veda-auth.identity.auth.effective-claims-cache.size:10000}") long maxSize,
+                                @Value("${veda-auth.identity.auth.effective-claims-cache.ttl:300}") long ttlSeconds) {
+        this.groupMembershipRepository = groupMembershipRepository;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Returns the claims of the user, computing them from the group memberships when they are not cached.
+     */
+    public EffectiveClaims get(long tenantId, String username) {
+        if (!enabled) {
+            return load(tenantId, username);
+        }
+        return cache.get(key(tenantId, username), k -> load(tenantId, username));
+    }
+
+    public void invalidate(long tenantId, String username) {
+        cache.invalidate(key(tenantId, username));
+    }
+
+    /**
+     * Drops the claims of every member of the given memberships, typically the members of a changed group.
+     */
+    public void invalidate(long tenantId, Collection<UserGroupMembership> memberships) {
+        if (memberships == null || memberships.isEmpty()) {
+            return;
+        }
+        for (UserGroupMembership membership : memberships) {
+            if (membership.getUserProfile() != null) {
+                invalidate(tenantId, membership.getUserProfile().getUsername());
+            }
+        }
+        LOGGER.debug("Invalidated the effective claims of {} group members", memberships.size());
+    }
+
+    private EffectiveClaims load(long tenantId, String username) {
+        List<Group> groups = groupMembershipRepository.findAllByUserProfileId(username + "@" + tenantId).stream()
+                .map(UserGroupMembership::getGroup)
+                .filter(Objects::nonNull)
+                .toList();
+
+        List<String> groupIds = groups.stream()
+                .map(Group::getExternalId)
+                .toList();
+
+        List<String> scopes = groups.stream()
+                .flatMap(group -> group.getGroupRole().stream())
+                .map(GroupRole::getValue)
+                .distinct()
+                .toList();
+
+        return new EffectiveClaims(groupIds, scopes);
+    }
+
+    private static String key(long tenantId, String username) {
+        return tenantId + ":" + username;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.profile;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.veda.central.core.model.credential.store.CredentialEntity;
+import com.veda.central.core.repo.credential.store.CredentialOwnerView;
+import com.veda.central.core.repo.credential.store.CredentialRepository;
+import com.veda.central.core.repo.tenant.TenantRepository;
+import com.veda.central.core.repo.tenant.TenantStatusView;
+import com.veda.central.core.tenant.profile.api.TenantStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory directory of tenant status, parent tenant and client owners used in the authorization path.
+ * It is loaded at startup, kept current by {@link TenantProfileService} and the credential manager,
+ * and each entry is reloaded in the background after the refresh interval so that changes made
+ * through other replicas are picked up.
+ */
+@Component
+public class TenantDirectory {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TenantDirectory.class);
+
+    private final TenantRepository tenantRepository;
+    private final CredentialRepository credentialRepository;
+
+    private final LoadingCache<Long, TenantEntry> tenants;
+    // client id -> owner tenant id
+    private final Map<String, Long> clientOwners = new ConcurrentHashMap<>();
+
+    public TenantDirectory(TenantRepository tenantRepository, CredentialRepository credentialRepository,
+                           @Value("${veda-auth.tenant.directory.refresh-interval:60}") long refreshInterval) {
+        this.tenantRepository = tenantRepository;
+        this.credentialRepository = credentialRepository;
+        this.tenants = Caffeine.newBuilder()
+                .refreshAfterWrite(Duration.ofSeconds(refreshInterval))
+                .build(this::loadTenant);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            for (TenantStatusView view : tenantRepository.findAllTenantStatuses()) {
+                tenants.put(view.getId(), toEntry(view));
+            }
+            for (CredentialOwnerView view : credentialRepository.findAllCredentialOwners()) {
+                addClient(view.getOwnerId(), view.getClientId());
+            }
+            LOGGER.info("Tenant directory loaded with {} tenants and {} clients", tenants.estimatedSize(), clientOwners.size());
+
+        } catch (Exception ex) {
+            // entries are loaded on demand if the initial load fails
+            LOGGER.error("Error while loading the tenant directory", ex);
+        }
+    }
+
+    public Optional<TenantEntry> getTenant(long tenantId) {
+        return Optional.ofNullable(tenants.get(tenantId));
+    }
+
+    public boolean isActive(long tenantId) {
+        return getTenant(tenantId).map(entry -> entry.getStatus() == TenantStatus.ACTIVE).orElse(false);
+    }
+
+    public void putTenant(long tenantId, String status, long parentId) {
+        tenants.put(tenantId, new TenantEntry(toStatus(status), parentId));
+    }
+
+    public void updateStatus(long tenantId, TenantStatus status) {
+        TenantEntry entry = tenants.getIfPresent(tenantId);
+        if (entry != null) {
+            tenants.put(tenantId, new TenantEntry(status, entry.getParentId()));
+        } else {
+            tenants.refresh(tenantId);
+        }
+    }
+
+    public Optional<Long> getOwnerId(String clientId) {
+        Long ownerId = clientOwners.get(clientId);
+        if (ownerId == null) {
+            CredentialEntity entity = credentialRepository.findByClientId(clientId);
+            if (entity == null) {
+                return Optional.empty();
+            }
+            ownerId = entity.getOwnerId();
+            addClient(ownerId, clientId);
+        }
+        return Optional.of(ownerId);
+    }
+
+    public void addClient(long tenantId, String clientId) {
+        clientOwners.put(clientId, tenantId);
+    }
+
+    private TenantEntry loadTenant(Long tenantId) {
+        return tenantRepository.findTenantStatusById(tenantId).map(this::toEntry).orElse(null);
+    }
+
+    private TenantEntry toEntry(TenantStatusView view) {
+        return new TenantEntry(toStatus(view.getStatus()), view.getParentId());
+    }
+
+    private TenantStatus toStatus(String status) {
+        try {
+            return status != null ? TenantStatus.valueOf(status) : TenantStatus.UNKNOWN;
+        } catch (IllegalArgumentException ex) {
+            return TenantStatus.UNKNOWN;
+        }
+    }
+
+    public static final class TenantEntry {
+
+        private final TenantStatus status;
+        private final long parentId;
+
+        public TenantEntry(TenantStatus status, long parentId) {
+            this.status = status;
+            this.parentId = parentId;
+        }
+
+        public TenantStatus getStatus() {
+            return status;
+        }
+
+        public long getParentId() {
+            return parentId;
+        }
+    }
+}
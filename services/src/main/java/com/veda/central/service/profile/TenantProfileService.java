@@ -44,6 +44,7 @@ import com.veda.central.core.tenant.profile.api.IsTenantExistResponse;
 import com.veda.central.core.tenant.profile.api.TenantStatus;
 import com.veda.central.core.tenant.profile.api.UpdateStatusRequest;
 import com.veda.central.core.tenant.profile.api.UpdateStatusResponse;
+import com.veda.central.service.auth.AuthClaimCache;
 import com.veda.central.service.exceptions.AuthenticationException;
 import com.veda.central.service.exceptions.InternalServerException;
 import jakarta.persistence.EntityNotFoundException;
@@ -70,15 +71,20 @@ public class TenantProfileService {
     private final TenantAttributeUpdateMetadataRepository tenantAttributeUpdateMetadataRepository;
     private final ContactRepository contactRepository;
     private final RedirectURIRepository redirectURIRepository;
+    private final AuthClaimCache authClaimCache;
+    private final TenantDirectory tenantDirectory;
 
     public TenantProfileService(TenantRepository tenantRepository, TenantStatusUpdateMetadataRepository tenantStatusUpdateMetadataRepository,
                                 TenantAttributeUpdateMetadataRepository tenantAttributeUpdateMetadataRepository,
-                                ContactRepository contactRepository, RedirectURIRepository redirectURIRepository) {
+                                ContactRepository contactRepository, RedirectURIRepository redirectURIRepository,
+                                AuthClaimCache authClaimCache, TenantDirectory tenantDirectory) {
         this.tenantRepository = tenantRepository;
         this.tenantStatusUpdateMetadataRepository = tenantStatusUpdateMetadataRepository;
         this.tenantAttributeUpdateMetadataRepository = tenantAttributeUpdateMetadataRepository;
         this.contactRepository = contactRepository;
         this.redirectURIRepository = redirectURIRepository;
+        this.authClaimCache = authClaimCache;
+        this.tenantDirectory = tenantDirectory;
     }
 
     public com.veda.central.core.tenant.profile.api.Tenant addTenant(com.veda.central.core.tenant.profile.api.Tenant request) {
@@ -91,6 +97,7 @@ public class TenantProfileService {
             Set<TenantStatusUpdateMetadata> metadataSet = StatusUpdateMetadataMapper.createStatusUpdateMetadataEntity(tenant, tenant.getRequesterEmail());
             tenant.setStatusUpdateMetadata(metadataSet);
             Tenant savedTenant = tenantRepository.save(tenant);
+            tenantDirectory.putTenant(savedTenant.getId(), savedTenant.getStatus(), savedTenant.getParentId());
             return request.toBuilder().setTenantId(savedTenant.getId()).build();
 
         } catch (Exception ex) {
@@ -125,6 +132,8 @@ public class TenantProfileService {
                 contactRepository.deleteAllByTenantId(tenantId);
                 redirectURIRepository.deleteAllByTenantId(tenantId);
                 tenantRepository.save(tenantEntity);
+                tenantDirectory.putTenant(tenantId, tenantEntity.getStatus(), tenantEntity.getParentId());
+                authClaimCache.invalidateTenant(tenantId);
 
                 return tenant;
 
@@ -309,6 +318,8 @@ public class TenantProfileService {
                 Set<TenantStatusUpdateMetadata> metadata = StatusUpdateMetadataMapper.createStatusUpdateMetadataEntity(t, updatedBy);
                 t.setStatusUpdateMetadata(metadata);
                 tenantRepository.save(t);
+                tenantDirectory.updateStatus(id, request.getStatus());
+                authClaimCache.invalidateTenant(id);
 
                 return UpdateStatusResponse.newBuilder()
                         .setTenantId(id)
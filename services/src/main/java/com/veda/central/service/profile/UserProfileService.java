@@ -113,6 +113,9 @@ public class UserProfileService {
     @Autowired
     private GroupMembershipTypeRepository groupMembershipTypeRepository;
 
+    @Autowired
+    private EffectiveClaimsCache effectiveClaimsCache;
+
 
     public com.veda.central.core.user.profile.api.UserProfile createUserProfile(UserProfileRequest request) {
         try {
@@ -139,6 +142,41 @@ public class UserProfileService {
         }
     }
 
+    /**
+     * Creates the profiles of the given users of a tenant that do not have one yet, with one lookup and one batch write.
+     *
+     * @return the number of profiles created
+     */
+    public int createUserProfiles(long tenantId, List<com.veda.central.core.user.profile.api.UserProfile> profiles) {
+        try {
+            LOGGER.debug("Request received to createUserProfiles for " + profiles.size() + " users at " + tenantId);
+
+            Map<String, com.veda.central.core.user.profile.api.UserProfile> profilesById = new HashMap<>();
+            for (com.veda.central.core.user.profile.api.UserProfile profile : profiles) {
+                profilesById.putIfAbsent(profile.getUsername() + "@" + tenantId, profile);
+            }
+            repository.findAllById(profilesById.keySet()).forEach(existing -> profilesById.remove(existing.getId()));
+
+            List<UserProfile> entities = new ArrayList<>();
+            profilesById.forEach((userId, profile) -> {
+                UserProfile entity = UserProfileMapper.createUserProfileEntityFromUserProfile(profile);
+                entity.setId(userId);
+                entity.setTenantId(tenantId);
+                entities.add(entity);
+            });
+
+            if (!entities.isEmpty()) {
+                repository.saveAll(entities);
+            }
+            return entities.size();
+
+        } catch (Exception ex) {
+            String msg = "Error occurred while creating " + profiles.size() + " user profiles at " + tenantId + " reason :" + ex.getMessage();
+            LOGGER.error(msg);
+            throw new RuntimeException(msg, ex);
+        }
+    }
+
     public com.veda.central.core.user.profile.api.UserProfile updateUserProfile(UserProfileRequest request) {
         try {
             LOGGER.debug("Request received to updateUserProfile for " + request.getProfile().getUsername() + "at " + request.getTenantId());
@@ -424,6 +462,7 @@ public class UserProfileService {
 
                 userGroupMembership.setUserGroupMembershipType(exist);
                 groupMembershipRepository.save(userGroupMembership);
+                effectiveClaimsCache.invalidate(tenantId, userProfile.get().getUsername());
 
                 return GroupMapper.createGroup(exOP.get(), userGroupMembership.getUserProfile().getUsername());
             } else {
@@ -467,6 +506,7 @@ public class UserProfileService {
 
                 if (exOP.isPresent()) {
                     List<UserGroupMembership> userGroupMemberships = groupMembershipRepository.findAllByGroupId(effectiveId);
+                    effectiveClaimsCache.invalidate(tenantId, userGroupMemberships);
 
                     String ownerId = null;
                     for (UserGroupMembership userGroupMembership : userGroupMemberships) {
@@ -521,11 +561,16 @@ public class UserProfileService {
                 com.veda.central.core.user.profile.api.Group prof = GroupMapper.createGroup(entity, ownerId);
 
                 groupRepository.delete(op.get());
+                effectiveClaimsCache.invalidate(tenantId, userGroupMemberships);
 
                 List<Group> groupList = groupRepository.findByParentId(entity.getId());
 
                 if (groupList != null && !groupList.isEmpty()) {
+                    List<UserGroupMembership> childMemberships = groupList.stream()
+                            .flatMap(child -> groupMembershipRepository.findAllByGroupId(child.getId()).stream())
+                            .toList();
                     groupRepository.deleteAll(groupList);
+                    effectiveClaimsCache.invalidate(tenantId, childMemberships);
                 }
 
             } else {
@@ -642,6 +687,7 @@ public class UserProfileService {
                     userGroupMembership.setTenantId(tenantId);
                     userGroupMembership.setUserGroupMembershipType(exist);
                     groupMembershipRepository.save(userGroupMembership);
+                    effectiveClaimsCache.invalidate(tenantId, username);
                 }
 
                 return Status.newBuilder().setStatus(true).build();
@@ -680,6 +726,7 @@ public class UserProfileService {
 
             if (memberships != null && !memberships.isEmpty()) {
                 groupMembershipRepository.deleteAll(memberships);
+                effectiveClaimsCache.invalidate(tenantId, username);
             }
 
             return Status.newBuilder().setStatus(true).build();
@@ -720,6 +767,7 @@ public class UserProfileService {
                 if (saved.getId() != null) {
                     childEntity.get().setParentId(parentId);
                     groupRepository.save(childEntity.get());
+                    effectiveClaimsCache.invalidate(tenantId, groupMembershipRepository.findAllByGroupId(effectiveChildId));
                     return com.veda.central.core.user.profile.api.Status.newBuilder().setStatus(true).build();
                 }
             }
@@ -1039,6 +1087,7 @@ public class UserProfileService {
 
             groupMembership.setUserGroupMembershipType(groupMembershipType);
             groupMembershipRepository.save(groupMembership);
+            effectiveClaimsCache.invalidate(tenantId, username);
 
             if (type.equals(DefaultGroupMembershipTypes.OWNER.name())) {
 
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package com.veda.central.service.auth;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput, in tokens per second, of signing a customized token with each supported algorithm.
+ * The keys are generated in memory, so no keys location is needed. Run {@link #main(String[])} with the test
+ * classpath of the services module, after {@code mvn -pl services test-compile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class TokenSignerBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private TokenSigner tokenSigner;
+    private JWTClaimsSet claims;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator rsa = KeyPairGenerator.getInstance("RSA");
+        rsa.initialize(2048);
+        KeyPairGenerator ec = KeyPairGenerator.getInstance("EC");
+        ec.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPairGenerator ed25519 = KeyPairGenerator.getInstance("Ed25519");
+
+        KeyRing keyRing = new KeyRing(1, Map.of(
+                JWSAlgorithm.RS256, signingKey(JWSAlgorithm.RS256, rsa.generateKeyPair()),
+                JWSAlgorithm.ES256, signingKey(JWSAlgorithm.ES256, ec.generateKeyPair()),
+                JWSAlgorithm.EdDSA, signingKey(JWSAlgorithm.EdDSA, ed25519.generateKeyPair())), Collections.emptyList());
+
+        tokenSigner = new TokenSigner(new StaticKeyLoader(keyRing), new SimpleMeterRegistry(), new StandardEnvironment(), algorithm);
+
+        Date now = new Date();
+        claims = new JWTClaimsSet.Builder()
+                .issuer("https://10000000.veda-auth-central.org")
+                .subject("benchmark-user")
+                .audience("veda-benchmark-client")
+                .issueTime(now)
+                .expirationTime(new Date(now.getTime() + TimeUnit.MINUTES.toMillis(30)))
+                .jwtID(UUID.randomUUID().toString())
+                .claim("preferred_username", "benchmark-user")
+                .claim("groups", List.of("admin", "read-only"))
+                .build();
+    }
+
+    @Benchmark
+    public String sign() throws JOSEException {
+        return tokenSigner.sign(claims, 10000000L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TokenSignerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static SigningKey signingKey(JWSAlgorithm algorithm, KeyPair keyPair) {
+        return new SigningKey(algorithm.getName() + "-benchmark", algorithm, keyPair);
+    }
+
+    /**
+     * Serves a fixed key ring instead of loading the keys from the keys location.
+     */
+    private static class StaticKeyLoader extends KeyLoader {
+
+        private final KeyRing keyRing;
+
+        StaticKeyLoader(KeyRing keyRing) {
+            this.keyRing = keyRing;
+        }
+
+        @Override
+        public KeyRing getKeyRing() {
+            return keyRing;
+        }
+
+        @Override
+        public SigningKey getSigningKey(JWSAlgorithm algorithm) {
+            return keyRing.getActiveKey(algorithm);
+        }
+    }
+}